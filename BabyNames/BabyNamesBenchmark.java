@@ -0,0 +1,191 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Scanner;
+
+/*
+Times the lookup and chart path so a change can be measured instead of guessed at.
+Each benchmark runs for a while to warm up, then a few timed rounds, and reports the
+average time per call and how many bytes each call allocated (from the thread's own
+allocation counter) plus how many collections ran, which is what JMH's -prof gc shows.
+It's a plain class instead of a JMH module since there is no build to add JMH to,
+so the numbers are a little rougher: there is no forking and dead code is only
+kept alive by adding every result into a sink.
+*/
+public class BabyNamesBenchmark {
+    private static final int ROUNDS = 5;
+
+    //one call of whatever is being measured, the int is folded into the sink
+    interface Operation {
+        int run() throws IOException;
+    }
+
+    private static final class Benchmark {
+        final String name;
+        final Operation operation;
+
+        Benchmark(String name, Operation operation){
+            this.name = name;
+            this.operation = operation;
+        }
+    }
+
+    private final ArrayList<Benchmark> benchmarks = new ArrayList<Benchmark>();
+    private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+    private final long roundMillis;
+    private int sink;
+
+    public BabyNamesBenchmark(File file, long roundMillis) throws IOException {
+        this.roundMillis = roundMillis;
+        NameIndex index = NameIndex.load(file);
+        NamesParser parser = NamesParser.open(file);
+        File binary = File.createTempFile("names", ".dat");
+        binary.deleteOnExit();
+        NamesBinary.write(index, binary);
+        MappedNames mapped = MappedNames.open(binary);
+        NameBloom bloom = mapped.bloom();
+        PackedRanks packed = new PackedRanks(index);
+        String first = index.name(0);
+        String middle = index.name(index.size()/2);
+        String last = index.name(index.size()-1);
+        String miss = "Zzyzx";
+        int[] ranks = new int[index.columns()];
+        int id = index.find(middle);
+        //hits go round 64 names spread over the table, one name would be the first thing a binary search looks at
+        String[] spread = new String[64];
+        for(int i = 0; i<spread.length; i++){
+            spread[i] = index.name((int)((long)i*index.size()/spread.length));
+        }
+        int[] next = new int[1];
+        String line = lineOf(index, id);
+        RankSeries series = RankSeries.of(index, id);
+        BufferedImage image = new BufferedImage(ChartRenderer.WIDTH, ChartRenderer.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        PrintStream nowhere = new PrintStream(OutputStream.nullOutputStream());
+
+        //the original exists(), reading names.txt from the top every time
+        add("scanner exists() first", () -> scan(file, first));
+        add("scanner exists() middle", () -> scan(file, middle));
+        add("scanner exists() last", () -> scan(file, last));
+        add("scanner exists() miss", () -> scan(file, miss));
+        //the same scan over the mapped bytes
+        add("parser find() first", () -> parser.find(first, ranks) ? 1 : 0);
+        add("parser find() middle", () -> parser.find(middle, ranks) ? 1 : 0);
+        add("parser find() last", () -> parser.find(last, ranks) ? 1 : 0);
+        add("parser find() miss", () -> parser.find(miss, ranks) ? 1 : 0);
+        //the loaded table
+        add("index find() hit", () -> index.find(spread[next[0]++ & 63]));
+        add("index find() miss", () -> index.find(miss));
+        add("mapped find() hit", () -> mapped.find(spread[next[0]++ & 63]));
+        add("mapped find() miss", () -> mapped.find(miss));
+        add("bloom mightContain() miss", () -> bloom.mightContain(miss) ? 1 : 0);
+        //getting a name's ranks as numbers
+        add("series from Scanner", () -> {
+            Scanner input = new Scanner(line);
+            input.next();
+            int sum = 0;
+            for(int c = 0; c<ranks.length; c++){
+                sum += input.nextInt();
+            }
+            return sum;
+        });
+        add("series from index", () -> RankSeries.of(index, id).rank(0));
+        add("series from packed", () -> packed.series(id, ranks)[0]);
+        //popRank() without the window
+        add("printRanks()", () -> {
+            GabrielleDobkinBabyNames.printRanks(series, nowhere);
+            return 0;
+        });
+        add("chart render", () -> {
+            ChartRenderer.renderInto(image, series);
+            return image.getRGB(100, 100);
+        });
+        add("chart render + png", () -> ChartRenderer.png(ChartRenderer.render(series)).length);
+    }
+
+    public void add(String name, Operation operation){
+        benchmarks.add(new Benchmark(name, operation));
+    }
+
+    //runs every benchmark whose name contains the filter, all of them if it's null
+    public void run(String filter, PrintStream out) throws IOException {
+        out.printf("%-26s %14s %10s %14s %6s%n", "benchmark", "ns/op", "error", "bytes/op", "gcs");
+        for(Benchmark benchmark : benchmarks){
+            if(filter != null && !benchmark.name.contains(filter)){
+                continue;
+            }
+            measure(benchmark.operation, roundMillis); //warm up
+            double[] nanos = new double[ROUNDS];
+            double bytes = 0;
+            long gcs = gcCount();
+            for(int round = 0; round<ROUNDS; round++){
+                double[] result = measure(benchmark.operation, roundMillis);
+                nanos[round] = result[0];
+                bytes += result[1]/ROUNDS;
+            }
+            gcs = gcCount()-gcs;
+            double mean = 0;
+            for(double n : nanos){
+                mean += n/ROUNDS;
+            }
+            double spread = 0;
+            for(double n : nanos){
+                spread += (n-mean)*(n-mean)/(ROUNDS-1);
+            }
+            out.printf("%-26s %14.1f %10.1f %14.1f %6d%n", benchmark.name, mean, Math.sqrt(spread), bytes, gcs);
+        }
+        if(sink == 42){ //never true as far as the JIT can tell, so nothing gets thrown away
+            out.println();
+        }
+    }
+
+    //calls the operation for about that long, returns the nanoseconds and bytes allocated per call
+    private double[] measure(Operation operation, long millis) throws IOException {
+        long calls = 0;
+        long batch = 1;
+        long end = System.nanoTime() + millis*1000000;
+        long bytes = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long now = start;
+        while(now < end){
+            for(long i = 0; i<batch; i++){
+                sink += operation.run();
+            }
+            calls += batch;
+            batch = Math.min(batch*2, 1 << 16); //checking the clock less as it goes
+            now = System.nanoTime();
+        }
+        bytes = threads.getCurrentThreadAllocatedBytes()-bytes;
+        return new double[]{(double)(now-start)/calls, (double)bytes/calls};
+    }
+
+    private static int scan(File file, String name) throws IOException {
+        Scanner input = new Scanner(file);
+        try{
+            return GabrielleDobkinBabyNames.exists(input, name) ? 1 : 0;
+        } finally{
+            input.close();
+        }
+    }
+
+    private static long gcCount(){
+        long count = 0;
+        for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()){
+            count += Math.max(gc.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    //the name's line the way names.txt has it
+    private static String lineOf(RankTable table, int id){
+        StringBuilder line = new StringBuilder(table.name(id));
+        for(int c = 0; c<table.columns(); c++){
+            line.append(' ').append(table.rank(id, c));
+        }
+        return line.toString();
+    }
+}
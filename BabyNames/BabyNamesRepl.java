@@ -0,0 +1,114 @@
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.GraphicsEnvironment;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Scanner;
+
+/*
+Keeps asking for names until there are none left, answering each one from the
+table that was loaded at the start. Every chart is drawn on the same DrawingPanel
+instead of opening a new window each time. After each answer it prints how long
+the lookup, the printing and the chart took, so the numbers are the warmed up ones.
+Typing the start of a name and then * lists the most popular names that start that way.
+With watch() a changed names.txt gets loaded, with its trie and matcher, while it keeps answering,
+and each answer uses whichever table was newest when it started.
+A year appended to names.dat moves names up in a copy of the trie instead of building it again.
+*/
+public class BabyNamesRepl {
+    private final PrintStream out = System.out;
+    private final DatasetReloader<Loaded> data;
+    private DrawingPanel panel; //made for the first chart and then reused
+
+    //a table with its indexes, a reload builds all of them before anything sees the new table
+    private static final class Loaded {
+        final RankTable table;
+        final NameTrie trie;
+        final FuzzyMatcher matcher;
+
+        Loaded(RankTable table){
+            this(table, new NameTrie(table));
+        }
+
+        Loaded(RankTable table, NameTrie trie){
+            this.table = table;
+            this.trie = trie;
+            matcher = new FuzzyMatcher(table);
+        }
+
+        Loaded extend(RankTable newer){
+            return new Loaded(newer, trie.extend(newer));
+        }
+    }
+
+    //the indexes get built here so not even the first query pays for them
+    public BabyNamesRepl(RankTable table){
+        data = new DatasetReloader<Loaded>(table, Loaded::new, Loaded::extend);
+    }
+
+    //picks up changes to names.txt or names.dat without a restart
+    public void watch(File text, File binary) throws IOException {
+        data.watch(text, binary);
+    }
+
+    public void run(InputStream in){
+        Scanner userInput = new Scanner(in);
+        while(true){
+            out.print("Type a name: ");
+            out.flush();
+            if(!userInput.hasNext()){
+                out.println();
+                return;
+            }
+            String name = userInput.next();
+            if(name.equalsIgnoreCase("quit") || name.equalsIgnoreCase("exit")){
+                return;
+            }
+            answer(name);
+        }
+    }
+
+    public void answer(String name){
+        long start = System.nanoTime();
+        Loaded loaded = data.current();
+        RankTable table = loaded.table;
+        if(name.endsWith("*")){
+            GabrielleDobkinBabyNames.complete(loaded.trie, table, name.substring(0, name.length()-1));
+            out.printf("(%.3fms)%n", (System.nanoTime()-start)/1e6);
+            return;
+        }
+        QueryPhase phase = QueryPhase.start(QueryPhase.LOOKUP, name);
+        RankSeries series = GabrielleDobkinBabyNames.lookup(table, name);
+        phase.stop();
+        long looked = System.nanoTime(); //the lookup ends here, printing isn't part of it
+        if(series == null){
+            out.println("\""+name+"\" not found");
+            GabrielleDobkinBabyNames.didYouMean(loaded.matcher, table, name);
+            out.printf("(%.3fms)%n", (System.nanoTime()-start)/1e6);
+            return;
+        }
+        phase = QueryPhase.start(QueryPhase.PRINT, name);
+        GabrielleDobkinBabyNames.printRanks(series, out);
+        phase.stop();
+        long printed = System.nanoTime();
+        if(!GraphicsEnvironment.isHeadless()){
+            phase = QueryPhase.start(QueryPhase.CHART, name);
+            chart(series);
+            phase.stop();
+        }
+        long charted = System.nanoTime();
+        out.printf("(lookup %.3fms, print %.3fms, chart %.3fms)%n", (looked-start)/1e6, (printed-looked)/1e6, (charted-printed)/1e6);
+    }
+
+    private void chart(RankSeries series){
+        if(panel == null){
+            panel = new DrawingPanel(ChartRenderer.WIDTH, ChartRenderer.HEIGHT);
+        }
+        Graphics g = panel.getGraphics();
+        g.setColor(Color.WHITE); //wipes the last chart
+        g.fillRect(0, 0, ChartRenderer.WIDTH, ChartRenderer.HEIGHT);
+        ChartRenderer.draw(g, series);
+    }
+}
@@ -0,0 +1,209 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+Keeps the data loaded and answers lookups over http so nobody has to start a JVM per name.
+    /rank?name=Aaron   the ranks as json
+    /chart?name=Aaron  the drawingPanel() chart as a png, drawn without a window
+    /top?year=1950&count=10  the best ranked names that year as json
+    /cache             hits, misses and evictions of the chart cache
+The table is loaded once and only ever read, so every request can share it.
+With watch() a new names.txt gets loaded in the background and swapped in, along with
+a fresh chart cache, and each request sticks with whichever table it started with.
+A year appended to names.dat keeps the chart cache (the data version in its keys is what
+makes the old charts miss) and only the new column gets sorted for /top.
+*/
+public class BabyNamesServer {
+    public static final long CHART_CACHE_BYTES = 32L*1024*1024;
+
+    private final DatasetReloader<Loaded> data;
+    private final HttpServer server;
+
+    //a table and the charts drawn from it, they get replaced together on a reload
+    private static final class Loaded {
+        final RankTable table;
+        final ChartCache charts;
+        final DecadeRankIndex years;
+
+        Loaded(RankTable table){
+            this(table, new ChartCache(CHART_CACHE_BYTES), new DecadeRankIndex(table));
+        }
+
+        Loaded(RankTable table, ChartCache charts, DecadeRankIndex years){
+            this.table = table;
+            this.charts = charts;
+            this.years = years;
+        }
+
+        Loaded extend(RankTable newer){
+            return new Loaded(newer, charts, years.extend(newer));
+        }
+    }
+
+    public BabyNamesServer(RankTable table, int port) throws IOException {
+        data = new DatasetReloader<Loaded>(table, Loaded::new, Loaded::extend);
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/rank", this::rank);
+        server.createContext("/chart", this::chart);
+        server.createContext("/top", this::top);
+        server.createContext("/cache", this::cache);
+        server.setExecutor(executor());
+    }
+
+    public void start(){
+        server.start();
+    }
+
+    public void stop(){
+        server.stop(0);
+    }
+
+    public int port(){
+        return server.getAddress().getPort();
+    }
+
+    //picks up changes to names.txt or names.dat without a restart
+    public void watch(File text, File binary) throws IOException {
+        data.watch(text, binary);
+    }
+
+    //a virtual thread per request when the JDK has them (21 and up), a thread pool otherwise
+    static ExecutorService executor(){
+        try{
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch(ReflectiveOperationException e){
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void rank(HttpExchange exchange) throws IOException {
+        RankTable table = data.current().table;
+        String name = parameter(exchange, "name");
+        int id = name == null ? -1 : table.find(name);
+        if(id < 0){
+            send(exchange, 404, "application/json", ("{\"error\":\"" + json(name) + " not found\"}").getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        RankSeries series = RankSeries.of(table, id);
+        StringBuilder body = new StringBuilder();
+        body.append("{\"name\":\"").append(json(series.name())).append('"');
+        body.append(",\"startYear\":").append(series.startYear());
+        body.append(",\"yearStep\":").append(series.yearStep());
+        body.append(",\"ranks\":[");
+        for(int i = 0; i<series.length(); i++){
+            if(i > 0){
+                body.append(',');
+            }
+            body.append(series.rank(i));
+        }
+        body.append("]}");
+        send(exchange, 200, "application/json", body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void chart(HttpExchange exchange) throws IOException {
+        Loaded loaded = data.current();
+        RankTable table = loaded.table;
+        ChartCache charts = loaded.charts;
+        String name = parameter(exchange, "name");
+        int id = name == null ? -1 : table.find(name);
+        if(id < 0){
+            send(exchange, 404, "text/plain", ("\"" + name + "\" not found").getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        long version = table.version(); //charts drawn from older data won't match
+        byte[] png = charts.get(name, ChartRenderer.WIDTH, ChartRenderer.HEIGHT, version);
+        if(png == null){
+            png = ChartRenderer.png(ChartRenderer.render(RankSeries.of(table, id)));
+            charts.put(name, ChartRenderer.WIDTH, ChartRenderer.HEIGHT, version, png);
+        }
+        send(exchange, 200, "image/png", png);
+    }
+
+    private void top(HttpExchange exchange) throws IOException {
+        Loaded loaded = data.current();
+        RankTable table = loaded.table;
+        String year = parameter(exchange, "year");
+        String count = parameter(exchange, "count");
+        int column;
+        int k;
+        try{
+            column = year == null ? -1 : RankTable.column(table, Integer.parseInt(year));
+            k = count == null ? 10 : Integer.parseInt(count);
+        } catch(NumberFormatException e){
+            column = -1;
+            k = 0;
+        }
+        if(column < 0 || k < 0){
+            send(exchange, 404, "application/json", ("{\"error\":\"no data for year " + json(year) + "\"}").getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        StringBuilder body = new StringBuilder();
+        body.append("{\"year\":").append(table.startYear()+table.yearStep()*column);
+        body.append(",\"version\":").append(table.version());
+        body.append(",\"names\":[");
+        int[] ids = loaded.years.top(column, k);
+        for(int i = 0; i<ids.length; i++){
+            if(i > 0){
+                body.append(',');
+            }
+            body.append("{\"name\":\"").append(json(table.name(ids[i]))).append("\",\"rank\":").append(table.rank(ids[i], column)).append('}');
+        }
+        body.append("]}");
+        send(exchange, 200, "application/json", body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void cache(HttpExchange exchange) throws IOException {
+        ChartCache charts = data.current().charts;
+        String body = "{\"hits\":" + charts.hits() + ",\"misses\":" + charts.misses() + ",\"evictions\":" + charts.evictions()
+                + ",\"charts\":" + charts.size() + ",\"bytes\":" + charts.bytes() + "}";
+        send(exchange, 200, "application/json", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, String type, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", type);
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    static String parameter(HttpExchange exchange, String key){
+        String query = exchange.getRequestURI().getRawQuery();
+        if(query == null){
+            return null;
+        }
+        for(String pair : query.split("&")){
+            int equals = pair.indexOf('=');
+            if(equals > 0 && pair.substring(0, equals).equals(key)){
+                return URLDecoder.decode(pair.substring(equals+1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    static String json(String text){
+        if(text == null){
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder();
+        for(int i = 0; i<text.length(); i++){
+            char c = text.charAt(i);
+            if(c == '"' || c == '\\'){
+                escaped.append('\\').append(c);
+            } else if(c < ' '){
+                escaped.append(String.format("\\u%04x", (int)c));
+            } else{
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,103 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Scanner;
+
+/*
+Answers a whole list of names with one pass over names.txt.
+The names being asked for go into a NameIndex used as a set,
+then every line of the file gets looked up in it as it streams past.
+Results come out as tab separated lines, in the order the names were asked.
+Since it's one pass, each phase (open, lookup, print) is timed once for the whole batch.
+When names.dat is up to date the batch is answered from it instead, one find() per name,
+so the answers come from the same data (appended columns too) that turned the misses away.
+*/
+public class BatchQuery {
+    public static void run(InputStream queries, File file, PrintStream out) throws IOException {
+        ArrayList<String> asked = new ArrayList<String>();
+        NameIndex pending = new NameIndex();
+        Scanner input = new Scanner(queries);
+        while(input.hasNext()){
+            String name = input.next();
+            asked.add(name);
+            pending.add(name, null);
+        }
+        QueryPhase phase = QueryPhase.start(QueryPhase.OPEN, null);
+        NamesParser parser = NamesParser.open(file);
+        phase.stop();
+        phase = QueryPhase.start(QueryPhase.LOOKUP, null); //one pass answers all of them
+        int[][] found = new int[pending.size()][];
+        if(pending.size() > 0){
+            parser.parse((p, nameStart, nameLength, ranks) -> {
+                int id = pending.find(p.nameView(nameStart, nameLength));
+                if(id >= 0){
+                    found[id] = ranks.clone();
+                }
+            });
+        }
+        phase.stop();
+
+        phase = QueryPhase.start(QueryPhase.PRINT, null);
+        StringBuilder line = header(parser.columns(), parser.startYear(), parser.yearStep());
+        out.println(line);
+        for(String name : asked){
+            line.setLength(0);
+            line.append(name);
+            int id = pending.find(name);
+            int[] ranks = id < 0 ? null : found[id];
+            if(ranks == null){
+                line.append("\tnot found");
+            } else{
+                for(int rank : ranks){
+                    line.append('\t').append(rank);
+                }
+            }
+            out.println(line);
+        }
+        out.flush();
+        phase.stop();
+    }
+
+    //the same answers from a table that can find names by itself, like a mapped names.dat
+    public static void run(InputStream queries, RankTable table, PrintStream out){
+        ArrayList<String> asked = new ArrayList<String>();
+        Scanner input = new Scanner(queries);
+        while(input.hasNext()){
+            asked.add(input.next());
+        }
+        QueryPhase phase = QueryPhase.start(QueryPhase.LOOKUP, null);
+        int[] found = new int[asked.size()];
+        for(int i = 0; i<found.length; i++){
+            found[i] = table.find(asked.get(i));
+        }
+        phase.stop();
+
+        phase = QueryPhase.start(QueryPhase.PRINT, null);
+        StringBuilder line = header(table.columns(), table.startYear(), table.yearStep());
+        out.println(line);
+        for(int i = 0; i<found.length; i++){
+            line.setLength(0);
+            line.append(asked.get(i));
+            if(found[i] < 0){
+                line.append("\tnot found");
+            } else{
+                for(int c = 0; c<table.columns(); c++){
+                    line.append('\t').append(table.rank(found[i], c));
+                }
+            }
+            out.println(line);
+        }
+        out.flush();
+        phase.stop();
+    }
+
+    private static StringBuilder header(int columns, int startYear, int yearStep){
+        StringBuilder line = new StringBuilder("name");
+        for(int i = 0; i<columns; i++){
+            line.append('\t').append(startYear+yearStep*i);
+        }
+        return line;
+    }
+}
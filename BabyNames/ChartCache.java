@@ -0,0 +1,97 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+Remembers the png bytes of charts that were already drawn so popular names
+don't get drawn and encoded again. A hit never touches AWT.
+Charts are kept in least recently used order and the oldest ones get dropped
+once the bytes of everything stored go over the budget.
+The dataset version is part of the key so charts from old data never get served.
+*/
+public class ChartCache {
+    private final long maxBytes;
+    private final LinkedHashMap<Key, byte[]> charts = new LinkedHashMap<Key, byte[]>(64, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ChartCache(long maxBytes){
+        this.maxBytes = maxBytes;
+    }
+
+    //the stored png or null, a null counts as a miss
+    public synchronized byte[] get(String name, int width, int height, long version){
+        byte[] png = charts.get(new Key(name, width, height, version));
+        if(png == null){
+            misses++;
+        } else{
+            hits++;
+        }
+        return png;
+    }
+
+    public synchronized void put(String name, int width, int height, long version, byte[] png){
+        if(png.length > maxBytes){ //it would just push everything else out and then itself
+            return;
+        }
+        byte[] old = charts.put(new Key(name, width, height, version), png);
+        if(old != null){
+            bytes -= old.length;
+        }
+        bytes += png.length;
+        Iterator<Map.Entry<Key, byte[]>> oldest = charts.entrySet().iterator();
+        while(bytes > maxBytes && oldest.hasNext()){
+            bytes -= oldest.next().getValue().length;
+            oldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized long hits(){
+        return hits;
+    }
+
+    public synchronized long misses(){
+        return misses;
+    }
+
+    public synchronized long evictions(){
+        return evictions;
+    }
+
+    public synchronized long bytes(){
+        return bytes;
+    }
+
+    public synchronized int size(){
+        return charts.size();
+    }
+
+    private static class Key {
+        private final String name; //lowercase so Aaron and AARON share a chart
+        private final int width;
+        private final int height;
+        private final long version;
+
+        Key(String name, int width, int height, long version){
+            this.name = name.toLowerCase();
+            this.width = width;
+            this.height = height;
+            this.version = version;
+        }
+
+        public boolean equals(Object other){
+            if(!(other instanceof Key)){
+                return false;
+            }
+            Key key = (Key)other;
+            return name.equals(key.name) && width == key.width && height == key.height && version == key.version;
+        }
+
+        public int hashCode(){
+            return ((name.hashCode()*31 + width)*31 + height)*31 + Long.hashCode(version);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+/*
+The chart from drawingPanel(), pulled out so it can draw on any Graphics.
+drawingPanel() hands it the DrawingPanel's Graphics and the server hands it
+a BufferedImage's, which works headless since no window ever gets made.
+*/
+public class ChartRenderer {
+    public static final int WIDTH = 550;
+    public static final int HEIGHT = 560;
+    public static final int GRID_LINES = 11;  //the grid and size stay the same however many columns there are
+    public static final int PLOT_WIDTH = 500; //x of the last column
+    public static final int UNRANKED = 1001;
+
+    //a different color for each name on an overlay chart, the first one is red like the single chart
+    public static final Color[] COLORS = {Color.red, Color.blue, new Color(0, 140, 0), Color.magenta,
+            Color.orange.darker(), Color.cyan.darker(), Color.darkGray, Color.pink.darker()};
+
+    public static void draw(Graphics g, RankSeries series){
+        String name = series.name();
+        int columns = series.length();
+        drawGrid(g);
+        //everything above is generic, and below is for the individual's data
+        g.setColor(Color.black);
+        g.setFont(new Font("SansSerif", Font.BOLD, 16));
+        g.drawString("Ranking of the name \""+name.substring(0,1).toUpperCase()+name.substring(1).toLowerCase()
+                +"\":",0,15);
+        g.setColor(Color.red);
+        drawLine(g, series);
+        //years and ranks only go at up to 11 columns or the text would pile up
+        g.setColor(Color.black);
+        int labels = Math.min(columns, GRID_LINES);
+        for(int l = 0; l<labels; l++){
+            int column = labelColumn(l, labels, columns);
+            int x = x(column, columns);
+            g.drawString(series.year(column) + "", x, 546);
+            int plotPoint = series.rank(column);
+            if (plotPoint == UNRANKED||plotPoint==0) {
+                g.drawString("0", x, 530);
+            } else{
+                g.drawString(plotPoint + "", x, y(plotPoint));
+            }
+        }
+    }
+
+    //several names on one chart, the grid and the yellow bands only get drawn once
+    //and each name is a line in its own color with its name where the line ends
+    public static void drawOverlay(Graphics g, RankSeries[] series){
+        drawGrid(g);
+        g.setColor(Color.black);
+        g.setFont(new Font("SansSerif", Font.BOLD, 16));
+        g.drawString("Ranking of " + series.length + " names:", 0, 15);
+        int columns = 0;
+        for(RankSeries one : series){
+            columns = Math.max(columns, one.length());
+        }
+        int labels = Math.min(columns, GRID_LINES);
+        for(int l = 0; l<labels && series.length > 0; l++){
+            int column = labelColumn(l, labels, columns);
+            g.drawString(series[0].startYear() + series[0].yearStep()*column + "", x(column, columns), 546);
+        }
+        for(int i = 0; i<series.length; i++){
+            g.setColor(COLORS[i % COLORS.length]);
+            drawLine(g, series[i]);
+        }
+        drawNameLabels(g, series);
+    }
+
+    //puts each name by the end of its line, sliding labels down (or up near the bottom)
+    //so none of them sit on top of each other
+    private static void drawNameLabels(Graphics g, RankSeries[] series){
+        g.setFont(new Font("SansSerif", Font.BOLD, 12));
+        FontMetrics metrics = g.getFontMetrics();
+        int height = metrics.getAscent();
+        int[] order = new int[series.length];
+        int[] labelY = new int[series.length];
+        for(int i = 0; i<series.length; i++){
+            int last = series[i].length()-1;
+            labelY[i] = last < 0 ? 30+height : y(series[i].rank(last)) + height/2;
+            int j = i; //insertion sort by where the line ends, there are only a few names
+            while(j > 0 && labelY[order[j-1]] > labelY[i]){
+                order[j] = order[j-1];
+                j--;
+            }
+            order[j] = i;
+        }
+        int previous = 30;
+        for(int i : order){ //top to bottom, each label at least a line below the one above
+            labelY[i] = Math.max(labelY[i], previous+height);
+            previous = labelY[i];
+        }
+        int next = 530+height;
+        for(int j = order.length-1; j >= 0; j--){ //then back up from the bottom band if they ran off
+            int i = order[j];
+            labelY[i] = Math.min(labelY[i], next-height);
+            next = labelY[i];
+        }
+        for(int i = 0; i<series.length; i++){
+            String name = series[i].name();
+            int end = x(Math.max(series[i].length()-1, 0), series[i].length());
+            int x = Math.min(end+4, WIDTH-metrics.stringWidth(name)-2);
+            g.setColor(COLORS[i % COLORS.length]);
+            g.drawString(name, x, labelY[i]);
+        }
+    }
+
+    private static void drawGrid(Graphics g){
+        int decadeWidth = GabrielleDobkinBabyNames.DECADE_WIDTH;
+        g.setColor(Color.LIGHT_GRAY);
+        for(int i = 1; i<=GRID_LINES; i++){ //horizontal
+            g.drawLine(0,30+(decadeWidth*(i-1)),550,30+(decadeWidth*(i-1)));
+        }
+        for(int i = 1; i<=GRID_LINES+1; i++){//vertical
+            g.drawLine(0+decadeWidth*(i-1),30,0+decadeWidth*(i-1),530);
+        }
+        g.setColor(Color.yellow);
+        g.fillRect(0,0,550,30);
+        g.fillRect(0,530,550,30);
+    }
+
+    //the line through the ranks in whatever color is set
+    private static void drawLine(Graphics g, RankSeries series){
+        int columns = series.length();
+        if(columns-1 <= PLOT_WIDTH){
+            for(int i = 1; i<columns; i++){
+                g.drawLine(x(i-1, columns), y(series.rank(i-1)), x(i, columns), y(series.rank(i)));
+            }
+        } else{
+            drawDecimated(g, series);
+        }
+    }
+
+    //which column the l'th of the year labels goes on, spread evenly from the first column to the last
+    private static int labelColumn(int l, int labels, int columns){
+        return labels == 1 ? 0 : (int)Math.round(l*(columns-1)/(double)(labels-1));
+    }
+
+    //up to 11 columns sit a decade width apart like they always did, more get squeezed into the same width
+    static int x(int column, int columns){
+        if(columns <= GRID_LINES){
+            return GabrielleDobkinBabyNames.DECADE_WIDTH*column;
+        }
+        return (int)((long)column*PLOT_WIDTH/(columns-1));
+    }
+
+    //0 is unranked and goes at the bottom like 1001, so does anything past 1000
+    static int y(int rank){
+        if(rank == 0 || rank > UNRANKED){
+            rank = UNRANKED;
+        }
+        return ((rank-1)/2)+30;
+    }
+
+    //when there are more columns than pixels every pixel gets one line from the lowest to the highest
+    //point that falls on it, plus one joining it to the pixel before, so it costs the same as a short series
+    private static void drawDecimated(Graphics g, RankSeries series){
+        int columns = series.length();
+        int column = 0;
+        int lastY = -1;
+        for(int x = 0; x<=PLOT_WIDTH && column<columns; x++){
+            int top = Integer.MAX_VALUE;
+            int bottom = Integer.MIN_VALUE;
+            int firstY = y(series.rank(column));
+            int endY = firstY;
+            while(column < columns && x(column, columns) == x){
+                endY = y(series.rank(column));
+                top = Math.min(top, endY);
+                bottom = Math.max(bottom, endY);
+                column++;
+            }
+            if(top == Integer.MAX_VALUE){ //can't happen with more columns than pixels, but just in case
+                continue;
+            }
+            if(lastY >= 0){
+                g.drawLine(x-1, lastY, x, firstY);
+            }
+            if(top != bottom){
+                g.drawLine(x, top, x, bottom);
+            }
+            lastY = endY;
+        }
+    }
+
+    //draws the chart the way DrawingPanel would, white background and antialiased
+    public static BufferedImage renderOverlay(RankSeries[] series){
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, WIDTH, HEIGHT);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        drawOverlay(g, series);
+        g.dispose();
+        return image;
+    }
+
+    public static BufferedImage render(RankSeries series){
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        renderInto(image, series);
+        return image;
+    }
+
+    //same as render() but reuses an image, everything that was on it gets painted over
+    public static void renderInto(BufferedImage image, RankSeries series){
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        draw(g, series);
+        g.dispose();
+    }
+
+    public static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16*1024);
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
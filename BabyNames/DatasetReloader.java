@@ -0,0 +1,167 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/*
+Lets a server or the REPL keep running while names.txt gets replaced.
+A background thread watches the file's folder, and when a new names.txt shows up it reads the
+whole thing into a new table and builds whatever goes with it (the trie, a chart cache...)
+before swapping it in with one set() on an AtomicReference.
+Anything that already got hold of the old one keeps using it, nothing is changed in place,
+so readers never lock and never see a half loaded table.
+A file that is being written can't be told apart from a shorter finished one, so the new
+names.txt has to be written somewhere else and renamed over the old one (mv names.txt.new names.txt),
+which makes it appear all at once. Only that rename (a create event) triggers a reload,
+writing into names.txt where it is gets ignored until the next rename.
+The file is read into memory in one go before it's parsed, and a line without every rank is
+refused, in which case the old data stays and the next rename tries again.
+names.dat is watched too. --convert renames a whole new one into place, but --append writes
+into it where it is, only past the end and then the header, so for names.dat a change to the
+file counts as well. Whichever of the two changed, the one that gets loaded is picked the same
+way a restart would pick it (names.dat if it's at least as new as names.txt), so a names.txt
+renamed in with an older date doesn't hide the years appended to names.dat.
+When the new names.dat only added to what is loaded (same ids, more columns or names,
+a higher data version) the extend function builds the new indexes from the old ones instead of starting over.
+*/
+public class DatasetReloader<T> {
+    private static final long SETTLE_MILLIS = 200; //lets events that come together arrive so they're one reload
+
+    private final AtomicReference<T> current;
+    private final Function<RankTable, T> build;
+    private final BiFunction<T, RankTable, T> extend; //null means always build from scratch
+    private RankTable table; //the one current was made from
+    private volatile int reloads;
+
+    public DatasetReloader(RankTable table, Function<RankTable, T> build){
+        this(table, build, null);
+    }
+
+    public DatasetReloader(RankTable table, Function<RankTable, T> build, BiFunction<T, RankTable, T> extend){
+        this.build = build;
+        this.extend = extend;
+        this.table = table;
+        current = new AtomicReference<T>(build.apply(table));
+    }
+
+    //the latest data, hold on to it for the whole request so everything comes from the same one
+    public T current(){
+        return current.get();
+    }
+
+    public int reloads(){
+        return reloads;
+    }
+
+    //loads names.dat or names.txt, whichever a restart would, and returns which one it was
+    public synchronized File reload(File text, File binary) throws IOException {
+        File source = GabrielleDobkinBabyNames.binaryIsCurrent(text, binary) ? binary : text;
+        reload(source);
+        return source;
+    }
+
+    //reads the file again right now and swaps it in, unless a line is missing ranks
+    public synchronized T reload(File file) throws IOException {
+        if(binary(file)){
+            MappedNames newer = MappedNames.read(file);
+            return swap(newer, extend != null && appendedTo(newer, table) ? extend.apply(current.get(), newer) : build.apply(newer));
+        }
+        NamesParser parser = NamesParser.read(file);
+        int bad = parser.badLine();
+        if(bad > 0){
+            throw new IOException("line " + bad + " doesn't have all " + parser.columns() + " ranks");
+        }
+        NameIndex newer = NameIndex.load(parser);
+        return swap(newer, build.apply(newer));
+    }
+
+    private T swap(RankTable newer, T next){
+        table = newer;
+        current.set(next);
+        reloads++;
+        return next;
+    }
+
+    //whether newer is older with more appended to it, so nothing that was worked out from older is wrong
+    static boolean appendedTo(RankTable newer, RankTable older){
+        if(newer.version() <= older.version() || newer.startYear() != older.startYear() || newer.yearStep() != older.yearStep()
+                || newer.columns() < older.columns() || newer.size() < older.size()){
+            return false;
+        }
+        for(int id = 0; id<older.size(); id++){
+            if(!newer.name(id).equals(older.name(id))){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean binary(File file){
+        return file.getName().endsWith(".dat");
+    }
+
+    //starts a daemon thread that reloads whenever a new names.txt is renamed into place
+    //or names.dat is replaced or appended to
+    public void watch(File text, File binary) throws IOException {
+        Path textPath = text.getAbsoluteFile().toPath();
+        Path binaryPath = binary.getAbsoluteFile().toPath();
+        WatchService watcher = FileSystems.getDefault().newWatchService();
+        textPath.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        if(!binaryPath.getParent().equals(textPath.getParent())){
+            binaryPath.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        Thread thread = new Thread(() -> {
+            try{
+                while(true){
+                    WatchKey key = watcher.take();
+                    boolean changed = changed(key, textPath, binaryPath);
+                    if(changed){
+                        //several events close together only need one reload, --append sends two
+                        Thread.sleep(SETTLE_MILLIS);
+                        for(WatchKey more = watcher.poll(); more != null; more = watcher.poll()){
+                            changed(more, textPath, binaryPath);
+                        }
+                        try{
+                            File source = reload(text, binary);
+                            System.out.println("Reloaded " + source.getName());
+                        } catch(IOException | RuntimeException e){
+                            System.out.println("Couldn't reload, keeping the old data: " + e);
+                        }
+                    }
+                    if(!key.isValid()){ //the folder is gone
+                        return;
+                    }
+                }
+            } catch(InterruptedException e){
+                //stopped
+            }
+        }, "names reloader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    //whether any of the key's events should cause a reload, and gets the key ready for more
+    //names.txt only counts when it's created (renamed into place), names.dat when it's written to as well
+    private static boolean changed(WatchKey key, Path text, Path binary){
+        boolean changed = false;
+        for(WatchEvent<?> event : key.pollEvents()){
+            if(!(event.context() instanceof Path)){ //an overflow, events were lost
+                changed = true;
+                continue;
+            }
+            Path path = ((Path)key.watchable()).resolve((Path)event.context());
+            if(path.equals(binary) || (path.equals(text) && event.kind() == StandardWatchEventKinds.ENTRY_CREATE)){
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
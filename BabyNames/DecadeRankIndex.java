@@ -0,0 +1,82 @@
+import java.util.Arrays;
+
+/*
+The reverse of the name lookup, for every column it keeps the ids of the ranked names
+sorted by their rank. "Who was 1 to 50 in the 1950s" is then a binary search for where
+rank 1 starts and reading the ids from there, nothing else in the column gets looked at.
+A sorted column never changes, so extend() shares them with the new index and only sorts the appended ones.
+*/
+public class DecadeRankIndex {
+    private final RankTable table;
+    private final int[][] ids;   //ids[column] = ranked ids, lowest rank first
+    private final int[][] ranks; //ranks[column][i] = rank of ids[column][i], for the binary search
+
+    public DecadeRankIndex(RankTable table){
+        this(table, new int[0][], new int[0][]);
+    }
+
+    private DecadeRankIndex(RankTable table, int[][] sortedIds, int[][] sortedRanks){
+        this.table = table;
+        int sorted = sortedIds.length;
+        ids = Arrays.copyOf(sortedIds, table.columns());
+        ranks = Arrays.copyOf(sortedRanks, table.columns());
+        for(int c = sorted; c<table.columns(); c++){
+            sortColumn(c);
+        }
+    }
+
+    //the index for a newer table that only added names and columns to this one's (an --append),
+    //names new to it are unranked in the old columns so those stay as they are
+    public DecadeRankIndex extend(RankTable newer){
+        return new DecadeRankIndex(newer, ids, ranks);
+    }
+
+    //the k best ranked names in the column, fewer if not that many were ranked
+    public int[] top(int column, int k){
+        return Arrays.copyOf(ids[column], Math.min(k, ids[column].length));
+    }
+
+    //names ranked from fromRank to toRank (both included) in the column, in rank order
+    public int[] range(int column, int fromRank, int toRank){
+        int start = firstAtLeast(ranks[column], fromRank);
+        int end = firstAtLeast(ranks[column], toRank+1);
+        return Arrays.copyOfRange(ids[column], start, Math.max(start, end));
+    }
+
+    public int rankedCount(int column){
+        return ids[column].length;
+    }
+
+    private void sortColumn(int column){
+        //rank in the high half and id in the low half so one sort orders by rank and then id
+        long[] keys = new long[table.size()];
+        int count = 0;
+        for(int id = 0; id<table.size(); id++){
+            int rank = table.rank(id, column);
+            if(rank != 0){
+                keys[count++] = ((long)rank << 32) | id;
+            }
+        }
+        Arrays.sort(keys, 0, count);
+        ids[column] = new int[count];
+        ranks[column] = new int[count];
+        for(int i = 0; i<count; i++){
+            ids[column][i] = (int)keys[i];
+            ranks[column][i] = (int)(keys[i] >>> 32);
+        }
+    }
+
+    private static int firstAtLeast(int[] sorted, int rank){
+        int low = 0;
+        int high = sorted.length;
+        while(low < high){
+            int middle = (low+high) >>> 1;
+            if(sorted[middle] < rank){
+                low = middle+1;
+            } else{
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
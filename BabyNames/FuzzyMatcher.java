@@ -0,0 +1,148 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*
+Finds names that are close to one that wasn't found, for "did you mean".
+Spelling mistakes are found with a BK-tree over the edit distance between lowercase names,
+which only has to look at the branches that could be close enough.
+Names that sound the same but are spelled differently (Katherine, Catherine) are found
+by keeping every name in a bucket for its Soundex code.
+*/
+public class FuzzyMatcher {
+    private final RankTable table;
+    private final String[] folded;   //folded[id] = lowercase name
+    private final int[] firstChild;  //bk-tree, the nodes are the name ids
+    private final int[] nextSibling;
+    private final int[] distance;    //distance from a node to its parent
+    private final int root;
+    private final HashMap<String, int[]> soundex = new HashMap<String, int[]>();
+
+    public FuzzyMatcher(RankTable table){
+        this.table = table;
+        int size = table.size();
+        folded = new String[size];
+        firstChild = new int[size];
+        nextSibling = new int[size];
+        distance = new int[size];
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(nextSibling, -1);
+        HashMap<String, ArrayList<Integer>> buckets = new HashMap<String, ArrayList<Integer>>();
+        for(int id = 0; id<size; id++){
+            folded[id] = table.name(id).toLowerCase();
+            if(id > 0){
+                add(0, id);
+            }
+            buckets.computeIfAbsent(soundex(folded[id]), code -> new ArrayList<Integer>()).add(id);
+        }
+        root = size > 0 ? 0 : -1;
+        for(String code : buckets.keySet()){
+            ArrayList<Integer> ids = buckets.get(code);
+            int[] bucket = new int[ids.size()];
+            for(int i = 0; i<bucket.length; i++){
+                bucket[i] = ids.get(i);
+            }
+            soundex.put(code, bucket);
+        }
+    }
+
+    //up to max ids of names close to the one given, closest first and then the more popular ones
+    public int[] suggest(String name, int max){
+        String key = name.toLowerCase();
+        int tolerance = key.length() <= 4 ? 1 : 2;
+        HashMap<Integer, Integer> found = new HashMap<Integer, Integer>(); //id -> distance
+        if(root >= 0){
+            search(root, key, tolerance, found);
+        }
+        int[] bucket = soundex.get(soundex(key));
+        if(bucket != null){
+            for(int id : bucket){
+                //sounding the same counts as one more than the spelling tolerance
+                found.merge(id, tolerance+1, Math::min);
+            }
+        }
+        Integer[] ids = found.keySet().toArray(new Integer[0]);
+        Arrays.sort(ids, (a, b) -> {
+            int diff = found.get(a) - found.get(b);
+            return diff != 0 ? diff : NameTrie.bestRank(table, a) - NameTrie.bestRank(table, b);
+        });
+        int[] result = new int[Math.min(max, ids.length)];
+        for(int i = 0; i<result.length; i++){
+            result[i] = ids[i];
+        }
+        return result;
+    }
+
+    private void add(int node, int id){
+        while(true){
+            int d = levenshtein(folded[node], folded[id]);
+            int child = firstChild[node];
+            while(child >= 0 && distance[child] != d){
+                child = nextSibling[child];
+            }
+            if(child < 0){
+                distance[id] = d;
+                nextSibling[id] = firstChild[node];
+                firstChild[node] = id;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    private void search(int node, String key, int tolerance, HashMap<Integer, Integer> found){
+        int d = levenshtein(folded[node], key);
+        if(d <= tolerance){
+            found.put(node, d);
+        }
+        //by the triangle inequality only children within tolerance of d can match
+        for(int child = firstChild[node]; child >= 0; child = nextSibling[child]){
+            if(Math.abs(distance[child]-d) <= tolerance){
+                search(child, key, tolerance, found);
+            }
+        }
+    }
+
+    static int levenshtein(String a, String b){
+        int[] previous = new int[b.length()+1];
+        int[] current = new int[b.length()+1];
+        for(int j = 0; j<=b.length(); j++){
+            previous[j] = j;
+        }
+        for(int i = 1; i<=a.length(); i++){
+            current[0] = i;
+            for(int j = 1; j<=b.length(); j++){
+                int cost = a.charAt(i-1) == b.charAt(j-1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j-1]+1, previous[j]+1), previous[j-1]+cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    //american soundex, a letter and three digits
+    static String soundex(String name){
+        String codes = "01230120022455012623010202"; //a to z
+        char[] result = {'0', '0', '0', '0'};
+        int length = 0;
+        char last = 0;
+        for(int i = 0; i<name.length() && length<4; i++){
+            char c = Character.toLowerCase(name.charAt(i));
+            if(c < 'a' || c > 'z'){
+                continue;
+            }
+            char code = codes.charAt(c-'a');
+            if(length == 0){
+                result[length++] = Character.toUpperCase(c);
+            } else if(code != '0' && code != last){
+                result[length++] = code;
+            }
+            if(c != 'h' && c != 'w'){ //h and w don't separate letters with the same code
+                last = code;
+            }
+        }
+        return new String(result);
+    }
+}
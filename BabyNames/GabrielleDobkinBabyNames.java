@@ -1,23 +1,438 @@
-import java.awt.*;
+import java.awt.GraphicsEnvironment;
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Scanner;
+import javax.imageio.ImageIO;
 
 public class GabrielleDobkinBabyNames {
     public static final File FILE = new File("names.txt");
+    public static final File BINARY_FILE = new File("names.dat");
     public static final int YEAR = 1900;
     public static final int DECADES_INPUT = 11;
     public static final int DECADE_WIDTH = 50;
-    public static void main(String[] args) throws FileNotFoundException {
+    public static void main(String[] args) throws IOException {
+        if(args.length > 0 && args[0].equals("--stats")){//the same as without it but prints how long each phase took after
+            String[] rest = Arrays.copyOfRange(args, 1, args.length);
+            try{
+                main(rest);
+            } finally{
+                QueryPhase.printStats(System.out);
+            }
+            return;
+        }
+        if(args.length > 0){//options skip the prompt
+            runCommand(args);
+            return;
+        }
         intro();
         String name = getName();
-        //scanner to look through the file
-        Scanner input = new Scanner(FILE);
-        if(!exists(input,name)){//ends program if the name doesn't exist
+        //the whole file is read once so the lookup doesn't rescan it
+        QueryPhase phase = QueryPhase.start(QueryPhase.OPEN, name);
+        RankTable table = loadTable();
+        phase.stop();
+        phase = QueryPhase.start(QueryPhase.LOOKUP, name);
+        boolean found = exists(table,name);
+        phase.stop();
+        if(!found){//ends program if the name doesn't exist
+            System.out.println("\""+name+"\" not found");
+            didYouMean(new FuzzyMatcher(table), table, name);
+            return;
+        }
+        popRank(table,name);
+    }
+    public static void didYouMean(FuzzyMatcher matcher, RankTable table, String name){
+        int[] close = matcher.suggest(name, 5);
+        if(close.length == 0){
+            return;
+        }
+        String suggestions = table.name(close[0]);
+        for(int i = 1; i<close.length; i++){
+            suggestions += ", " + table.name(close[i]);
+        }
+        System.out.println("Did you mean: " + suggestions + "?");
+    }
+    public static void runCommand(String[] args) throws IOException {
+        switch(args[0]){
+            case "--convert"://turns names.txt into names.dat
+                File out = args.length > 1 ? new File(args[1]) : BINARY_FILE;
+                NamesBinary.write(NameIndex.load(FILE), out);
+                System.out.println("Wrote " + out);
+                break;
+            case "--parse-bench"://compares reading names.txt with Scanner to NamesParser
+                parseBenchmark(args.length > 1 ? Integer.parseInt(args[1]) : 50);
+                break;
+            case "--batch"://names from a file, or typed in if there is no file, all answered in one pass
+                InputStream names = args.length > 1 && !args[1].equals("-") ? new FileInputStream(args[1]) : System.in;
+                if(binaryIsCurrent()){ //names.dat has the same names plus anything --append added
+                    QueryPhase phase = QueryPhase.start(QueryPhase.OPEN, null);
+                    MappedNames mapped = MappedNames.open(BINARY_FILE);
+                    phase.stop();
+                    BatchQuery.run(names, mapped, System.out);
+                } else{
+                    BatchQuery.run(names, FILE, System.out);
+                }
+                break;
+            case "--complete"://most popular names starting with what was typed
+                RankTable table = loadTable();
+                complete(new NameTrie(table), table, args.length > 1 ? args[1] : "");
+                break;
+            case "--top"://the best ranked names, for every decade or for one of them
+                int count = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+                if(count < 0){
+                    System.out.println("The count can't be negative");
+                    break;
+                }
+                RankTable ranked = loadTable();
+                if(args.length > 2){
+                    topOfDecade(new DecadeRankIndex(ranked), ranked, Integer.parseInt(args[2]), count);
+                } else{
+                    topTable(new DecadeRankIndex(ranked), ranked, count);
+                }
+                break;
+            case "--trends"://biggest climbers and fallers between two decades
+                if(args.length < 3){
+                    System.out.println("Usage: --trends <from year> <to year> [count]");
+                    break;
+                }
+                int moved = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+                if(moved < 0){
+                    System.out.println("The count can't be negative");
+                    break;
+                }
+                RankTable all = loadTable();
+                int from = RankTable.column(all, Integer.parseInt(args[1]));
+                int to = RankTable.column(all, Integer.parseInt(args[2]));
+                if(from < 0 || to < 0){
+                    System.out.println("No rankings for " + (from < 0 ? args[1] : args[2]));
+                    break;
+                }
+                trends(new TrendAnalytics(all, from, to), all, moved);
+                break;
+            case "--serve"://keeps running and answers /rank and /chart over http
+                System.setProperty("java.awt.headless", "true");
+                BabyNamesServer server = new BabyNamesServer(loadTable(), args.length > 1 ? Integer.parseInt(args[1]) : 8080);
+                server.watch(FILE, BINARY_FILE); //--append adds years to names.dat
+                server.start();
+                System.out.println("Serving on http://localhost:" + server.port() + "/rank?name=, /chart?name= and /top?year=");
+                break;
+            case "--export"://a png chart for every name
+                System.setProperty("java.awt.headless", "true");
+                RankTable everyone = loadTable();
+                File directory = new File(args.length > 1 ? args[1] : "charts");
+                int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+                long start = System.nanoTime();
+                int images = ChartExporter.export(everyone, directory, threads);
+                double seconds = (System.nanoTime()-start)/1e9;
+                System.out.printf("Wrote %d charts to %s in %.2fs (%.0f images/sec on %d threads)%n",
+                        images, directory, seconds, images/seconds, threads);
+                break;
+            case "--ingest"://builds the table from the raw yobYYYY.txt files
+                if(args.length < 2){
+                    System.out.println("Usage: --ingest <folder of yobYYYY.txt> [out file] [ranks per sex]");
+                    break;
+                }
+                int maxRank = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+                File written = new File(args.length > 2 ? args[2] : "ssa-names.txt");
+                if(maxRank < 1 || (written.getName().endsWith(".dat") && maxRank > NamesBinary.MAX_RANK)){
+                    System.out.println("Ranks per sex has to be from 1" + (written.getName().endsWith(".dat") ? " to " + NamesBinary.MAX_RANK + " for names.dat" : ""));
+                    break;
+                }
+                SsaIngest ingest = new SsaIngest();
+                NameIndex ingested = ingest.ingest(new File(args[1]), maxRank);
+                if(written.getName().endsWith(".dat")){
+                    NamesBinary.write(ingested, written);
+                } else{
+                    NameIndex.writeText(ingested, written);
+                }
+                double took = ingest.nanos()/1e9;
+                System.out.printf("Ingested %d rows (%.1f MB) into %d names x %d years in %.2fs, %.0f rows/sec%n",
+                        ingest.rows(), ingest.bytes()/1e6, ingested.size(), ingested.columns(), took, ingest.rows()/took);
+                System.out.println("Wrote " + written);
+                break;
+            case "--append"://adds the next decade or year to names.dat from a file of "name rank" lines
+                if(args.length < 2){
+                    System.out.println("Usage: --append <file of name rank lines>");
+                    break;
+                }
+                if(!BINARY_FILE.exists() || BINARY_FILE.lastModified() < FILE.lastModified()){
+                    NameIndex text = NameIndex.load(FILE);
+                    if(BINARY_FILE.exists() && !replaceable(MappedNames.open(BINARY_FILE), text)){
+                        break;
+                    }
+                    NamesBinary.write(text, BINARY_FILE);
+                }
+                appendColumn(BINARY_FILE, new File(args[1]));
+                break;
+            case "--similar"://names whose ranks moved the most like this one's
+                if(args.length < 2){
+                    System.out.println("Usage: --similar <name> [count]");
+                    break;
+                }
+                int closest = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+                if(closest < 0){
+                    System.out.println("The count can't be negative");
+                    break;
+                }
+                RankTable series = loadTable();
+                similar(new TrajectorySearch(series), series, args[1], closest);
+                break;
+            case "--repl"://keeps asking for names with everything loaded once
+                intro();
+                QueryPhase opening = QueryPhase.start(QueryPhase.OPEN, null);
+                RankTable loaded = loadTable();
+                opening.stop();
+                QueryPhase indexing = QueryPhase.start(QueryPhase.INDEX, null);
+                BabyNamesRepl repl = new BabyNamesRepl(loaded);
+                indexing.stop();
+                repl.watch(FILE, BINARY_FILE); //a new names.txt or years appended to names.dat get picked up without restarting
+                repl.run(System.in);
+                break;
+            case "--compare"://several names on one chart
+                compare(loadTable(), Arrays.copyOfRange(args, 1, args.length));
+                break;
+            case "--memory"://how much smaller the ranks are bit-packed than as ints
+                memory(loadTable());
+                break;
+            case "--filter"://names matching ranks in several decades, like 1950:100 and 2000:unranked
+                if(args.length < 2){
+                    System.out.println("Usage: --filter <year:rank|year:unranked> [and|or] [not] <year:...> ...");
+                    break;
+                }
+                RankTable filtered = loadTable();
+                filter(new RankBitmaps(filtered), filtered, Arrays.copyOfRange(args, 1, args.length));
+                break;
+            case "--bench"://times the lookups and the chart, with bytes allocated per call
+                System.setProperty("java.awt.headless", "true");
+                long roundMillis = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+                new BabyNamesBenchmark(FILE, roundMillis).run(args.length > 1 && !args[1].equals("all") ? args[1] : null, System.out);
+                break;
+            case "--bloom"://how well the bloom filter turns away names that aren't there
+                bloom(loadTable(), args.length > 1 ? Integer.parseInt(args[1]) : 100000);
+                break;
+            default:
+                System.out.println("Unknown option " + args[0]);
+        }
+    }
+    public static void complete(NameTrie trie, RankTable table, String prefix){
+        for(int id : trie.complete(prefix)){
+            int best = trie.bestRank(id);
+            System.out.println(table.name(id) + (best == Integer.MAX_VALUE ? "" : " (best rank " + best + ")"));
+        }
+    }
+    public static void topOfDecade(DecadeRankIndex index, RankTable table, int year, int count){
+        int column = RankTable.column(table, year);
+        if(column < 0){
+            System.out.println("No rankings for " + year);
+            return;
+        }
+        System.out.println("Most popular names of " + (table.startYear()+table.yearStep()*column));
+        for(int id : index.top(column, count)){//the same names as --top without a year and /top, ties go by id
+            System.out.println(table.rank(id, column) + ": " + table.name(id));
+        }
+    }
+    public static void topTable(DecadeRankIndex index, RankTable table, int count){//one column per decade
+        String line = "#";
+        for(int i = 1; i<=table.columns(); i++){
+            line += "\t" + (table.startYear()+(table.yearStep()*(i-1)));
+        }
+        System.out.println(line);
+        int[][] tops = new int[table.columns()][];
+        for(int c = 0; c<tops.length; c++){
+            tops[c] = index.top(c, count);
+        }
+        for(int row = 0; row<count; row++){
+            line = "" + (row+1);
+            for(int c = 0; c<tops.length; c++){
+                line += "\t" + (row < tops[c].length ? table.name(tops[c][row]) : "");
+            }
+            System.out.println(line);
+        }
+    }
+    public static void trends(TrendAnalytics trends, RankTable table, int count){
+        System.out.println("Biggest climbers");
+        for(int id : trends.risers(count)){
+            printTrend(trends, table, id);
+        }
+        System.out.println("Biggest fallers");
+        for(int id : trends.fallers(count)){
+            printTrend(trends, table, id);
+        }
+    }
+    private static void printTrend(TrendAnalytics trends, RankTable table, int id){
+        System.out.printf("%-12s %+5d  peak %s  first %s  last %s  volatility %.1f%n", table.name(id), trends.delta[id],
+                yearOf(table, trends.peak[id]), yearOf(table, trends.first[id]), yearOf(table, trends.last[id]), trends.volatility[id]);
+    }
+    private static String yearOf(RankTable table, int column){
+        return column < 0 ? "-" : "" + (table.startYear()+table.yearStep()*column);
+    }
+    //whether names.dat can be remade from names.txt without losing columns that were appended to it
+    public static boolean replaceable(RankTable binary, RankTable text){
+        if(binary.version() > 0 || binary.columns() > text.columns() || binary.startYear() != text.startYear()
+                || binary.yearStep() != text.yearStep()){
+            System.out.println(BINARY_FILE + " has data names.txt doesn't (" + binary.columns() + " columns, data version "
+                    + binary.version() + ") and names.txt has changed since, so appending would start over from names.txt.");
+            System.out.println("Nothing was changed. Run --convert to remake " + BINARY_FILE + " from names.txt on purpose, or touch "
+                    + BINARY_FILE + " to keep appending to it.");
+            return false;
+        }
+        return true;
+    }
+    public static void appendColumn(File dataset, File column) throws IOException {
+        NamesParser parser = NamesParser.open(column);
+        if(parser.columns() != 1){
+            System.out.println(column + " should have one name and one rank per line");
+            return;
+        }
+        ArrayList<String> names = new ArrayList<String>();
+        ArrayList<Integer> ranks = new ArrayList<Integer>();
+        parser.parse((p, nameStart, nameLength, stats) -> {
+            names.add(p.name(nameStart, nameLength));
+            ranks.add(stats[0]);
+        });
+        int[] newRanks = new int[ranks.size()];
+        for(int i = 0; i<newRanks.length; i++){
+            newRanks[i] = ranks.get(i);
+        }
+        long start = System.nanoTime();
+        int added = NamesBinary.appendColumn(dataset, names.toArray(new String[0]), newRanks);
+        RankTable table = MappedNames.open(dataset);
+        System.out.printf("Added %d to %s: %d names, %d of them new, data version %d (%.1fms)%n",
+                table.startYear()+table.yearStep()*(table.columns()-1), dataset, names.size(), added,
+                table.version(), (System.nanoTime()-start)/1e6);
+    }
+    public static void similar(TrajectorySearch search, RankTable table, String name, int count){
+        int id = table.find(name);
+        if(id < 0){
             System.out.println("\""+name+"\" not found");
             return;
         }
-        popRank(input,name);
+        long start = System.nanoTime();
+        int[] close = search.similar(id, count);
+        long took = System.nanoTime()-start;
+        System.out.println("Names that trended like " + table.name(id) + ":");
+        for(int other : close){
+            System.out.println(table.name(other));
+        }
+        System.out.printf("(%.3fms)%n", took/1e6);
+    }
+    public static void compare(RankTable table, String[] names) throws IOException {
+        ArrayList<RankSeries> found = new ArrayList<RankSeries>();
+        for(String name : names){
+            RankSeries series = lookup(table, name);
+            if(series == null){
+                System.out.println("\""+name+"\" not found");
+            } else{
+                found.add(series);
+            }
+        }
+        if(found.isEmpty()){
+            return;
+        }
+        RankSeries[] series = found.toArray(new RankSeries[0]);
+        if(GraphicsEnvironment.isHeadless()){//no window to show it in, so it goes in a file
+            File out = new File("compare.png");
+            ImageIO.write(ChartRenderer.renderOverlay(series), "png", out);
+            System.out.println("Wrote " + out);
+            return;
+        }
+        DrawingPanel panel = new DrawingPanel (ChartRenderer.WIDTH,ChartRenderer.HEIGHT);
+        ChartRenderer.drawOverlay(panel.getGraphics(), series);
+    }
+    public static void filter(RankBitmaps bitmaps, RankTable table, String[] query){
+        long start = System.nanoTime();
+        NameBitmap matches;
+        try{
+            matches = bitmaps.filter(query);
+        } catch(IllegalArgumentException e){
+            System.out.println(e.getMessage());
+            return;
+        }
+        long took = System.nanoTime()-start;
+        for(int id : matches.ids()){
+            System.out.println(table.name(id));
+        }
+        System.out.printf("%d names (%.3fms)%n", matches.cardinality(), took/1e6);
+    }
+    public static void bloom(RankTable table, int tries){
+        NameBloom bloom = table instanceof MappedNames ? ((MappedNames)table).bloom() : null;
+        String from = "from names.dat";
+        if(bloom == null){
+            bloom = NameBloom.of(table);
+            from = "built from names.txt";
+        }
+        System.out.printf("%d bits for %d names (%.1f per name), %d hashes, %s%n", bloom.bits(), table.size(),
+                (double)bloom.bits()/table.size(), bloom.hashes(), from);
+        System.out.printf("expected false positive rate: %.4f%%%n", 100*bloom.expectedFalsePositiveRate());
+        System.out.printf("measured false positive rate: %.4f%% of %d made up names%n",
+                100*bloom.measureFalsePositiveRate(table, tries, 1), tries);
+    }
+    public static void memory(RankTable table){
+        long start = System.nanoTime();
+        PackedRanks packed = new PackedRanks(table);
+        long built = System.nanoTime()-start;
+        int[] row = new int[table.columns()];
+        for(int id = 0; id<table.size(); id++){ //make sure nothing got lost in the packing
+            packed.series(id, row);
+            for(int c = 0; c<row.length; c++){
+                if(row[c] != table.rank(id, c)){
+                    throw new IllegalStateException(table.name(id) + " packed wrong in column " + c);
+                }
+            }
+        }
+        int[] all = new int[table.size()*table.columns()];
+        start = System.nanoTime();
+        packed.decode(0, table.size(), all);
+        long decoded = System.nanoTime()-start;
+        long ints = PackedRanks.intTableBytes(table);
+        System.out.println(table.size() + " names, " + table.columns() + " columns, " + packed.bitsPerRank() + " bits per rank");
+        System.out.println("int table:    " + ints + " bytes");
+        System.out.printf("packed table: %d bytes (%.1fx smaller)%n", packed.bytes(), (double)ints/packed.bytes());
+        System.out.printf("(packed in %.3fms, every rank decoded in %.3fms)%n", built/1e6, decoded/1e6);
+    }
+    public static void parseBenchmark(int rounds) throws IOException {
+        NamesParser parser = NamesParser.open(FILE);
+        int[] total = new int[1]; //keeps the parsed ranks from being optimized away
+        int records = parser.parse((p, nameStart, nameLength, ranks) -> total[0] += ranks[0]);
+        int[] ranks = new int[parser.columns()];
+        long scannerTime = 0;
+        long parseTime = 0;
+        long findTime = 0;
+        for(int round = 0; round<rounds; round++){
+            long start = System.nanoTime();
+            exists(new Scanner(FILE), "-"); //a name that isn't there makes it read the whole file
+            scannerTime += System.nanoTime()-start;
+            start = System.nanoTime();
+            parser.parse((p, nameStart, nameLength, stats) -> total[0] += stats[0]);
+            parseTime += System.nanoTime()-start;
+            start = System.nanoTime();
+            parser.find("-", ranks);
+            findTime += System.nanoTime()-start;
+        }
+        System.out.println(records + " records, " + rounds + " rounds");
+        System.out.println("Scanner exists() miss: " + perSecond(records, rounds, scannerTime) + " records/sec");
+        System.out.println("NamesParser parse:     " + perSecond(records, rounds, parseTime) + " records/sec");
+        System.out.println("NamesParser find miss: " + perSecond(records, rounds, findTime) + " records/sec");
+    }
+    private static long perSecond(int records, int rounds, long nanos){
+        return (long)((double)records*rounds*1e9/Math.max(nanos, 1));
+    }
+    public static RankTable loadTable() throws IOException {
+        //names.dat is used if it has been made from the current names.txt, otherwise the text file is read
+        if(binaryIsCurrent()){
+            return MappedNames.open(BINARY_FILE);
+        }
+        return NameIndex.load(FILE);
+    }
+    public static boolean binaryIsCurrent(){
+        return binaryIsCurrent(FILE, BINARY_FILE);
+    }
+    public static boolean binaryIsCurrent(File text, File binary){
+        return binary.exists() && binary.lastModified() >= text.lastModified();
     }
     public static void intro(){
         System.out.println("This program graphs the popularity of a name" +
@@ -43,68 +458,36 @@ public class GabrielleDobkinBabyNames {
         }
         return false;
     }
-    public static void popRank(Scanner input, String name){
-        /*
-        by the time that the program reaches here
-        it is already at the line of the name from previously
-        and it has all the numbers ready to go all you have to do is present them
-        */
-        String willBePanelled = "";
-        System.out.println("Popularity ranking of the name \""+name.substring(0,1).toUpperCase()+name.substring(1).toLowerCase()+"\"");
-        for (int i = 1; i<=DECADES_INPUT;i++){
-            int stat = input.nextInt();
-            willBePanelled += stat + " ";
-            System.out.println(YEAR+(10*(i-1)) + ": " + stat);
-        }
-        drawingPanel(willBePanelled, name);
-    }
-    public static void drawingPanel (String data, String name){//this is where the panel is drawn and the data put in
-        DrawingPanel panel = new DrawingPanel (550,560);
-        Graphics g = panel.getGraphics();
-        g.setColor(Color.LIGHT_GRAY);
-        for(int i = 1; i<=DECADES_INPUT; i++){ //horizontal
-            g.drawLine(0,30+(DECADE_WIDTH*(i-1)),550,30+(DECADE_WIDTH*(i-1)));
-        }
-        for(int i = 1; i<=DECADES_INPUT+1; i++){//vertical
-            g.drawLine(0+DECADE_WIDTH*(i-1),30,0+DECADE_WIDTH*(i-1),530);
-        }
-        g.setColor(Color.yellow);
-        g.fillRect(0,0,550,30);
-        g.fillRect(0,530,550,30);
-        //everything above is generic, and below is for the individual's data
-        g.setColor(Color.black);
-        g.setFont(new Font("SansSerif", Font.BOLD, 16));
-        for(int i = 1; i<=11; i++) {
-            g.drawString(YEAR + 10 * (i - 1) + "", 0 + DECADE_WIDTH * (i - 1), 546);
-        }
-        g.drawString("Ranking of the name \""+name.substring(0,1).toUpperCase()+name.substring(1).toLowerCase()
-                +"\":",0,15);
-        g.setColor(Color.red);
-        Scanner dataScan = new Scanner(data);
-        int plotPoint = dataScan.nextInt();
-        for(int i = 1; i<DECADES_INPUT; i++) {
-            g.setColor(Color.black);
-            if (plotPoint == 1001||plotPoint==0) {
-                g.drawString("0", 0 + DECADE_WIDTH * (i - 1), 530);
-            } else{
-                g.drawString(plotPoint + "", 0 + DECADE_WIDTH * (i - 1), ((plotPoint - 1) / 2) + 30);
-            }
-            g.setColor(Color.red);
-            int nextPlotPoint = dataScan.nextInt();
-            if(plotPoint==0){ //this way to can work for the math that I use to figure out the coordinates
-                plotPoint=1001;
-            }
-            if(nextPlotPoint==0){
-                nextPlotPoint=1001;
-            }
-            g.drawLine(0+DECADE_WIDTH*(i-1),((plotPoint-1)/2)+30,DECADE_WIDTH+DECADE_WIDTH*(i-1),((nextPlotPoint-1)/2)+30);
-            plotPoint=nextPlotPoint;
+    public static boolean exists(RankTable table, String name){//same as above but without the scan
+        return table.find(name) >= 0;
+    }
+    public static void popRank(RankTable table, String name){//prints the ranks straight out of the table
+        RankSeries series = lookup(table, name);
+        QueryPhase phase = QueryPhase.start(QueryPhase.PRINT, name);
+        printRanks(series, System.out);
+        phase.stop();
+        phase = QueryPhase.start(QueryPhase.CHART, name); //the first chart includes starting up AWT
+        drawingPanel(series);
+        phase.stop();
+    }
+    public static RankSeries lookup(RankTable table, String name){//the ranks without printing anything, null if not found
+        return RankSeries.of(table, name);
+    }
+    public static void printRanks(RankSeries series, PrintStream out){
+        String name = series.name();
+        StringBuilder line = new StringBuilder(32*(series.length()+1));
+        line.append("Popularity ranking of the name \"").append(Character.toUpperCase(name.charAt(0)));
+        for(int i = 1; i<name.length(); i++){
+            line.append(Character.toLowerCase(name.charAt(i)));
         }
-        g.setColor(Color.black);
-        if (plotPoint == 1001||plotPoint==0) {
-            g.drawString("0", 0 + 50 * (DECADES_INPUT - 1), 530);
-        } else{
-            g.drawString(plotPoint + "", 0 + 50 * (DECADES_INPUT - 1), ((plotPoint - 1) / 2) + 30);
+        line.append("\"\n");
+        for (int i = 0; i<series.length();i++){
+            line.append(series.year(i)).append(": ").append(series.rank(i)).append('\n');
         }
+        out.print(line);
+    }
+    public static void drawingPanel (RankSeries series){//this is where the panel is drawn and the data put in
+        DrawingPanel panel = new DrawingPanel (ChartRenderer.WIDTH,ChartRenderer.HEIGHT);
+        ChartRenderer.draw(panel.getGraphics(), series);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+Counts how long something took without keeping every time, the way HdrHistogram does it.
+Times go in buckets that double in width every 8 buckets, so any time is off by at most
+an eighth wherever it falls and the whole range of a long fits in under 500 counters.
+Recording is one increment, safe from any number of threads at once.
+*/
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((64-SUB_BITS)*SUB_BUCKETS);
+
+    public void record(long nanos){
+        counts.incrementAndGet(bucket(Math.max(nanos, 0)));
+    }
+
+    public long count(){
+        long count = 0;
+        for(int b = 0; b<counts.length(); b++){
+            count += counts.get(b);
+        }
+        return count;
+    }
+
+    //the time that fraction of the recordings were at or under (0.5 for the median), 0 if there are none
+    public long percentile(double fraction){
+        long total = count();
+        if(total == 0){
+            return 0;
+        }
+        long wanted = Math.max(1, (long)Math.ceil(fraction*total));
+        long seen = 0;
+        for(int b = 0; b<counts.length(); b++){
+            seen += counts.get(b);
+            if(seen >= wanted){
+                return highest(b);
+            }
+        }
+        return highest(counts.length()-1);
+    }
+
+    //the first 8 buckets are 0 to 7 exactly, after that the top 4 bits pick the bucket
+    static int bucket(long value){
+        if(value < SUB_BUCKETS){
+            return (int)value;
+        }
+        int exponent = 63-Long.numberOfLeadingZeros(value);
+        return (exponent-SUB_BITS+1)*SUB_BUCKETS + (int)((value >>> (exponent-SUB_BITS)) & (SUB_BUCKETS-1));
+    }
+
+    //the biggest time that lands in the bucket
+    static long highest(int bucket){
+        if(bucket < SUB_BUCKETS){
+            return bucket;
+        }
+        int shift = bucket/SUB_BUCKETS - 1;
+        long lowest = (long)(SUB_BUCKETS + bucket%SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,224 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+
+/*
+Reads names.dat (see NamesBinary for the layout) by mapping the file into memory.
+Nothing gets parsed at startup besides the header, the column table and the bloom filter,
+lookups go through the perfect hash (or binary search the sorted ids in version 1 and 2 files without one)
+and compare the name bytes in place.
+A name the bloom filter has never seen is turned away before the search touches the file.
+read() copies the file into memory instead, for DatasetReloader, so a names.dat that gets
+cut short afterwards can't pull the data out from under it. Either way every offset in the
+header and the column table is checked against the file's length before anything else is read.
+*/
+public class MappedNames implements RankTable {
+    private final ByteBuffer buffer;
+    private final int startYear;
+    private final int yearStep;
+    private final int size;
+    private final int columns;
+    private final int nameOffsets; //where the int[] of name starts is
+    private final int sortedIds;   //where the sorted int[] of ids is, -1 in version 3 files which don't have it
+    private final int nameBytes;   //where the name bytes start
+    private final int[] columnOffsets;
+    private final int[] columnLengths;
+    private final long version;
+    private final int extras;      //where the extra sections are listed, 0 if there aren't any
+    private final NameBloom bloom; //null in files written before there was one
+    private final NamePerfectHash hash; //same
+
+    private MappedNames(ByteBuffer buffer){
+        this.buffer = buffer;
+        if(buffer.getInt(0) != NamesBinary.MAGIC){
+            throw new IllegalArgumentException("not a names.dat file");
+        }
+        if(buffer.getInt(4) > NamesBinary.VERSION){
+            throw new IllegalArgumentException("names.dat version " + buffer.getInt(4) + " is newer than this reader");
+        }
+        version = buffer.getInt(4) >= 2 ? buffer.getLong(48) : 0;
+        startYear = buffer.getInt(8);
+        yearStep = buffer.getInt(12);
+        size = buffer.getInt(16);
+        columns = buffer.getInt(20);
+        nameOffsets = (int)buffer.getLong(24);
+        sortedIds = buffer.getInt(4) >= 3 ? -1 : nameOffsets + 4*(size+1);
+        nameBytes = nameOffsets + 4*(size+1) + (sortedIds < 0 ? 0 : 4*size);
+        check(nameOffsets, (long)nameBytes - nameOffsets);
+        check(nameBytes, nameStart(size));
+        long toc = buffer.getLong(32);
+        check(toc, (long)NamesBinary.COLUMN_ENTRY_SIZE*columns);
+        columnOffsets = new int[columns];
+        columnLengths = new int[columns];
+        for(int c = 0; c<columns; c++){
+            long entry = toc + NamesBinary.COLUMN_ENTRY_SIZE*c;
+            columnOffsets[c] = (int)buffer.getLong((int)entry);
+            columnLengths[c] = buffer.getInt((int)entry + 8);
+            check(columnOffsets[c], 2L*columnLengths[c]);
+        }
+        extras = (int)buffer.getLong(40);
+        int bloomOffset = section(NamesBinary.BLOOM_SECTION);
+        bloom = bloomOffset < 0 ? null : NameBloom.read(buffer, bloomOffset);
+        int hashOffset = section(NamesBinary.HASH_SECTION);
+        hash = hashOffset < 0 ? null : NamePerfectHash.read(buffer, hashOffset);
+        if(hash == null && sortedIds < 0){
+            throw new IllegalArgumentException("names.dat version 3 without its perfect hash, there's no way to look names up");
+        }
+    }
+
+    public static MappedNames open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try{
+            FileChannel channel = raf.getChannel();
+            //the mapping stays valid after the channel is closed
+            return new MappedNames(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally{
+            raf.close();
+        }
+    }
+
+    //the same from a copy of the file in memory
+    public static MappedNames read(File file) throws IOException {
+        return new MappedNames(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+    }
+
+    //a file that was cut short (or isn't a names.dat) points past its own end
+    private void check(long offset, long length){
+        if(offset < 0 || length < 0 || offset + length > buffer.limit()){
+            throw new IllegalArgumentException("names.dat is cut short, it needs " + (offset+length) + " bytes and has " + buffer.limit());
+        }
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public int columns(){
+        return columns;
+    }
+
+    public int startYear(){
+        return startYear;
+    }
+
+    public int yearStep(){
+        return yearStep;
+    }
+
+    public long version(){
+        return version;
+    }
+
+    //where things are in the file, for NamesBinary.appendColumn()
+    int formatVersion(){
+        return buffer.getInt(4);
+    }
+
+    long dictionaryOffset(){
+        return nameOffsets;
+    }
+
+    long extrasOffset(){
+        return extras;
+    }
+
+    //where the extra section with the tag starts, -1 if the file doesn't have it
+    int section(int tag){
+        if(extras == 0){
+            return -1;
+        }
+        int count = buffer.getInt(extras);
+        for(int i = 0; i<count; i++){
+            int entry = extras + 4 + NamesBinary.SECTION_ENTRY_SIZE*i;
+            if(buffer.getInt(entry) == tag){
+                return (int)buffer.getLong(entry+4);
+            }
+        }
+        return -1;
+    }
+
+    public NameBloom bloom(){
+        return bloom;
+    }
+
+    public NamePerfectHash perfectHash(){
+        return hash;
+    }
+
+    int columnOffset(int column){
+        return columnOffsets[column];
+    }
+
+    int columnLength(int column){
+        return columnLengths[column];
+    }
+
+    public String name(int id){
+        int start = nameStart(id);
+        int end = nameStart(id+1);
+        char[] chars = new char[end-start];
+        for(int i = 0; i<chars.length; i++){
+            chars[i] = (char)(buffer.get(nameBytes+start+i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    public int rank(int id, int column){
+        if(id >= columnLengths[column]){ //the column was written before this name existed
+            return 0;
+        }
+        return buffer.getShort(columnOffsets[column] + 2*id) & 0xFFFF;
+    }
+
+    public int find(CharSequence name){
+        long hashed = NameBloom.hash(name); //the bloom filter and the perfect hash both start from it
+        if(bloom != null && !bloom.mightContain(hashed)){ //it's on the heap, so most misses never touch the file
+            return -1;
+        }
+        if(hash != null){ //the fingerprint catches most of the misses that got past the filter
+            int id = hash.candidate(hashed);
+            return id >= 0 && compareFolded(id, name) == 0 ? id : -1;
+        }
+        return binarySearch(name);
+    }
+
+    //the lookup for version 1 and 2 files written before the perfect hash
+    int binarySearch(CharSequence name){
+        int low = 0;
+        int high = size-1;
+        while(low <= high){
+            int middle = (low+high) >>> 1;
+            int id = buffer.getInt(sortedIds + 4*middle);
+            int diff = compareFolded(id, name);
+            if(diff < 0){
+                low = middle+1;
+            } else if(diff > 0){
+                high = middle-1;
+            } else{
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private int nameStart(int id){
+        return buffer.getInt(nameOffsets + 4*id);
+    }
+
+    //same order as NamesBinary.compareFolded but reads the stored name out of the buffer
+    private int compareFolded(int id, CharSequence name){
+        int start = nameBytes + nameStart(id);
+        int length = nameStart(id+1) - nameStart(id);
+        int shorter = Math.min(length, name.length());
+        for(int i = 0; i<shorter; i++){
+            int diff = Character.toLowerCase((char)(buffer.get(start+i) & 0xFF)) - Character.toLowerCase(name.charAt(i));
+            if(diff != 0){
+                return diff;
+            }
+        }
+        return length - name.length();
+    }
+}
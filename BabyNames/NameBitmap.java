@@ -0,0 +1,161 @@
+import java.util.Arrays;
+
+/*
+A set of name ids as bits, 64 ids to a word. Only the words that have at least one bit set
+are stored, with the position of each one next to it, so a bucket like "ranked 1 to 10"
+that is mostly empty words takes a few words instead of one per 64 names.
+and(), or() and andNot() walk the two lists of words together like a merge,
+so they are a handful of long operations and never look at a single name.
+Bitmaps are never changed once they're made, every operation hands back a new one.
+*/
+public final class NameBitmap {
+    private final int size;        //ids go from 0 to size-1
+    private final int[] positions; //word number of each stored word, in order
+    private final long[] words;    //never 0
+
+    private NameBitmap(int size, int[] positions, long[] words){
+        this.size = size;
+        this.positions = positions;
+        this.words = words;
+    }
+
+    //packs a plain one-word-per-64-ids bitset, leaving out the empty words
+    public static NameBitmap of(int size, long[] bits){
+        int count = 0;
+        for(long word : bits){
+            if(word != 0){
+                count++;
+            }
+        }
+        int[] positions = new int[count];
+        long[] words = new long[count];
+        count = 0;
+        for(int i = 0; i<bits.length; i++){
+            if(bits[i] != 0){
+                positions[count] = i;
+                words[count++] = bits[i];
+            }
+        }
+        return new NameBitmap(size, positions, words);
+    }
+
+    public static NameBitmap all(int size){
+        long[] bits = new long[(size+63) >>> 6];
+        Arrays.fill(bits, -1L);
+        return of(size, trim(size, bits));
+    }
+
+    public NameBitmap and(NameBitmap other){
+        int[] newPositions = new int[Math.min(words.length, other.words.length)];
+        long[] newWords = new long[newPositions.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while(i < words.length && j < other.words.length){
+            if(positions[i] < other.positions[j]){
+                i++;
+            } else if(positions[i] > other.positions[j]){
+                j++;
+            } else{
+                long word = words[i] & other.words[j];
+                if(word != 0){
+                    newPositions[count] = positions[i];
+                    newWords[count++] = word;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new NameBitmap(size, Arrays.copyOf(newPositions, count), Arrays.copyOf(newWords, count));
+    }
+
+    public NameBitmap or(NameBitmap other){
+        int[] newPositions = new int[words.length + other.words.length];
+        long[] newWords = new long[newPositions.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while(i < words.length || j < other.words.length){
+            if(j == other.words.length || (i < words.length && positions[i] < other.positions[j])){
+                newPositions[count] = positions[i];
+                newWords[count++] = words[i++];
+            } else if(i == words.length || positions[i] > other.positions[j]){
+                newPositions[count] = other.positions[j];
+                newWords[count++] = other.words[j++];
+            } else{
+                newPositions[count] = positions[i];
+                newWords[count++] = words[i++] | other.words[j++];
+            }
+        }
+        return new NameBitmap(Math.max(size, other.size), Arrays.copyOf(newPositions, count), Arrays.copyOf(newWords, count));
+    }
+
+    //the ids in this one that aren't in the other
+    public NameBitmap andNot(NameBitmap other){
+        int[] newPositions = new int[words.length];
+        long[] newWords = new long[words.length];
+        int count = 0;
+        int j = 0;
+        for(int i = 0; i<words.length; i++){
+            while(j < other.words.length && other.positions[j] < positions[i]){
+                j++;
+            }
+            long word = words[i];
+            if(j < other.words.length && other.positions[j] == positions[i]){
+                word &= ~other.words[j];
+            }
+            if(word != 0){
+                newPositions[count] = positions[i];
+                newWords[count++] = word;
+            }
+        }
+        return new NameBitmap(size, Arrays.copyOf(newPositions, count), Arrays.copyOf(newWords, count));
+    }
+
+    //every id from 0 to size-1 that isn't in this one
+    public NameBitmap not(){
+        return all(size).andNot(this);
+    }
+
+    public boolean contains(int id){
+        int i = Arrays.binarySearch(positions, id >>> 6);
+        return i >= 0 && (words[i] & (1L << id)) != 0;
+    }
+
+    public int cardinality(){
+        int count = 0;
+        for(long word : words){
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    //the ids in order
+    public int[] ids(){
+        int[] ids = new int[cardinality()];
+        int count = 0;
+        for(int i = 0; i<words.length; i++){
+            for(long word = words[i]; word != 0; word &= word-1){
+                ids[count++] = (positions[i] << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return ids;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    //the stored words and their positions, about what the bitmap takes up
+    public long bytes(){
+        return 12L*words.length;
+    }
+
+    //clears the bits past the last id so not() and all() don't make up names
+    private static long[] trim(int size, long[] bits){
+        if((size & 63) != 0 && bits.length > 0){
+            bits[bits.length-1] &= (1L << size)-1;
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,143 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/*
+A Bloom filter over the lowercase names, so a name that isn't there can usually be turned
+away without searching anything. If mightContain() says no the name is definitely missing,
+if it says yes the real lookup still has to check, since a few misses get through.
+There are at least BITS_PER_NAME bits per name, rounded up to a power of two so picking a bit
+is a mask, and the hashes are two halves of one 64 bit hash combined k ways.
+The hash only depends on the name, so the bits can be saved in names.dat and read back as they are.
+*/
+public class NameBloom {
+    public static final int BITS_PER_NAME = 10;
+
+    private final long[] words;
+    private final int hashes;
+    private final long mask;
+
+    public NameBloom(int names){
+        long bits = Long.highestOneBit(Math.max(64L, (long)names*BITS_PER_NAME - 1) << 1);
+        words = new long[(int)(bits >>> 6)];
+        mask = bits-1;
+        //k = bits per name * ln 2 is what gives the fewest false positives
+        hashes = (int)Math.max(1, Math.min(16, Math.round((double)bits/Math.max(names, 1)*Math.log(2))));
+    }
+
+    private NameBloom(long[] words, int hashes){
+        this.words = words;
+        this.hashes = hashes;
+        mask = 64L*words.length-1;
+    }
+
+    public static NameBloom of(RankTable table){
+        NameBloom bloom = new NameBloom(table.size());
+        for(int id = 0; id<table.size(); id++){
+            bloom.add(table.name(id));
+        }
+        return bloom;
+    }
+
+    public void add(CharSequence name){
+        long hash = hash(name);
+        long h1 = hash >>> 32;
+        long h2 = hash | 1; //odd so the k bits never all land on the same one
+        for(int i = 0; i<hashes; i++){
+            long bit = (h1 + i*h2) & mask;
+            words[(int)(bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    //false means the name is definitely not there
+    public boolean mightContain(CharSequence name){
+        return mightContain(hash(name));
+    }
+
+    //for callers that already have hash(name) and want it for something else too
+    boolean mightContain(long hash){
+        long h1 = hash >>> 32;
+        long h2 = hash | 1;
+        for(int i = 0; i<hashes; i++){
+            long bit = (h1 + i*h2) & mask;
+            if((words[(int)(bit >>> 6)] & (1L << bit)) == 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bits(){
+        return 64L*words.length;
+    }
+
+    public int hashes(){
+        return hashes;
+    }
+
+    //what the false positive rate should be from how full the bits are
+    public double expectedFalsePositiveRate(){
+        long set = 0;
+        for(long word : words){
+            set += Long.bitCount(word);
+        }
+        return Math.pow((double)set/bits(), hashes);
+    }
+
+    //tries made up names that aren't in the table and returns how many got past the filter
+    public double measureFalsePositiveRate(RankTable table, int tries, long seed){
+        Random random = new Random(seed);
+        StringBuilder name = new StringBuilder();
+        int misses = 0;
+        int passed = 0;
+        while(misses < tries){
+            name.setLength(0);
+            name.append((char)('A' + random.nextInt(26)));
+            for(int length = 2 + random.nextInt(8); name.length()<length;){
+                name.append((char)('a' + random.nextInt(26)));
+            }
+            if(table.find(name) >= 0){ //only names that really aren't there count
+                continue;
+            }
+            misses++;
+            if(mightContain(name)){
+                passed++;
+            }
+        }
+        return (double)passed/Math.max(misses, 1);
+    }
+
+    //the section saved in names.dat: int k, int word count, then the words
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(hashes);
+        out.writeInt(words.length);
+        for(long word : words){
+            out.writeLong(word);
+        }
+    }
+
+    public static NameBloom read(ByteBuffer buffer, int offset){
+        int hashes = buffer.getInt(offset);
+        long[] words = new long[buffer.getInt(offset+4)];
+        for(int i = 0; i<words.length; i++){
+            words[i] = buffer.getLong(offset + 8 + 8*i);
+        }
+        return new NameBloom(words, hashes);
+    }
+
+    //FNV-1a over the lowercase chars with the bits mixed at the end, saved filters depend on it never changing
+    static long hash(CharSequence name){
+        long h = 0xcbf29ce484222325L;
+        for(int i = 0; i<name.length(); i++){
+            h ^= Character.toLowerCase(name.charAt(i));
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,179 @@
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/*
+Holds every name in names.txt with its decade ranks so the file only gets read once.
+Names are looked up case-insensitively in an open addressing hash table,
+so a lookup doesn't build any strings or lowercase anything.
+The ranks are kept a column at a time, like names.dat.
+New years get appended to names.dat (--append), not to this, and DatasetReloader hands them on.
+*/
+public class NameIndex implements RankTable {
+    private String[] names = new String[16]; //spelled the way the file has them
+    private int[][] ranks;                   //ranks[column][id], ids past the end of a column are unranked
+    private int[] slots = new int[32];       //holds id+1, 0 means the slot is empty
+    private int size;
+    private int columns;
+    private int startYear;
+    private int yearStep;
+
+    public NameIndex(){
+        this(GabrielleDobkinBabyNames.DECADES_INPUT, GabrielleDobkinBabyNames.YEAR, 10);
+    }
+
+    public NameIndex(int columns, int startYear, int yearStep){
+        this.columns = columns;
+        this.startYear = startYear;
+        this.yearStep = yearStep;
+        ranks = new int[columns][0];
+    }
+
+    public static NameIndex load(File file) throws IOException {
+        return load(NamesParser.open(file));
+    }
+
+    public static NameIndex load(NamesParser parser){
+        NameIndex index = new NameIndex(parser.columns(), parser.startYear(), parser.yearStep());
+        parser.parse((p, nameStart, nameLength, ranks) -> index.add(p.name(nameStart, nameLength), ranks));
+        return index;
+    }
+
+    //writes any table out the way names.txt is laid out, with a header line if it isn't plain decades from 1900
+    public static void writeText(RankTable table, File file) throws IOException {
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16), false, "ISO-8859-1");
+        try{
+            if(table.startYear() != GabrielleDobkinBabyNames.YEAR || table.yearStep() != 10){
+                out.print("# " + table.startYear() + " " + table.yearStep() + "\n");
+            }
+            StringBuilder line = new StringBuilder();
+            for(int id = 0; id<table.size(); id++){
+                line.setLength(0);
+                line.append(table.name(id));
+                for(int c = 0; c<table.columns(); c++){
+                    line.append(' ').append(table.rank(id, c));
+                }
+                out.print(line.append('\n'));
+            }
+        } finally{
+            out.close();
+        }
+    }
+
+    //adds a name and returns its id, a name that is already there just gets its ranks replaced
+    //the ranks get copied so the array can be reused, a null means unranked everywhere
+    public int add(String name, int[] stats){
+        int id = find(name);
+        if(id < 0){
+            if(size == names.length){
+                names = Arrays.copyOf(names, size*2);
+            }
+            id = size++;
+            names[id] = name;
+            if(size*2 > slots.length){
+                rehash(slots.length*2);
+            } else{
+                insert(id);
+            }
+        }
+        for(int c = 0; c<columns; c++){
+            int stat = stats == null ? 0 : stats[c];
+            if(stat != 0 || id < ranks[c].length){
+                if(id >= ranks[c].length){
+                    ranks[c] = Arrays.copyOf(ranks[c], Math.max(16, Math.max(id+1, ranks[c].length*2)));
+                }
+                ranks[c][id] = stat;
+            }
+        }
+        return id;
+    }
+
+    //returns the id of the name or -1 if it isn't there
+    public int find(CharSequence name){
+        int mask = slots.length-1;
+        int slot = hash(name) & mask;
+        while(slots[slot] != 0){
+            int id = slots[slot]-1;
+            if(matches(names[id], name)){
+                return id;
+            }
+            slot = (slot+1) & mask;
+        }
+        return -1;
+    }
+
+    public boolean exists(CharSequence name){
+        return find(name) >= 0;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public int columns(){
+        return columns;
+    }
+
+    public int startYear(){
+        return startYear;
+    }
+
+    public int yearStep(){
+        return yearStep;
+    }
+
+    //names.txt has no data version, only names.dat counts the columns appended to it
+    public long version(){
+        return 0;
+    }
+
+    public int rank(int id, int column){
+        int[] stats = ranks[column];
+        return id < stats.length ? stats[id] : 0;
+    }
+
+    public String name(int id){
+        return names[id];
+    }
+
+    private void insert(int id){
+        int mask = slots.length-1;
+        int slot = hash(names[id]) & mask;
+        while(slots[slot] != 0){
+            slot = (slot+1) & mask;
+        }
+        slots[slot] = id+1;
+    }
+
+    private void rehash(int capacity){
+        slots = new int[capacity];
+        for(int id = 0; id<size; id++){
+            insert(id);
+        }
+    }
+
+    static int hash(CharSequence name){
+        int h = 0;
+        for(int i = 0; i<name.length(); i++){
+            h = 31*h + Character.toLowerCase(name.charAt(i));
+        }
+        return h ^ (h >>> 16); //spreads the high bits down since the table is a power of two
+    }
+
+    static boolean matches(String name, CharSequence other){
+        if(name.length() != other.length()){
+            return false;
+        }
+        for(int i = 0; i<name.length(); i++){
+            char a = name.charAt(i);
+            char b = other.charAt(i);
+            if(a != b && Character.toLowerCase(a) != Character.toLowerCase(b)){
+                return false;
+            }
+        }
+        return true;
+    }
+}
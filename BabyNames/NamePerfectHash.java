@@ -0,0 +1,210 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*
+A minimal perfect hash over the lowercase names of a names.dat, built by CHD (hash, displace and compress).
+Every name hashes to one of the buckets (about 5 names each), and each bucket has a displacement,
+picked when it's built, that sends its names to slots no other name has. With n names there
+are exactly n slots, so nothing is wasted on empty ones.
+Each slot holds one int: the name's id in the low bits and a fingerprint of its hash in the rest.
+A lookup reads one displacement and one slot, and a name whose fingerprint doesn't match is
+turned away right there. One that does match still has to be compared, since the hash
+can't tell a name it was built from apart from one it has never seen.
+The ids stay in names.txt order instead of being moved into slot order, because the top lists
+and the trie fall back on id order to break ties and --append has to leave ids where they are,
+so the slot carries the id.
+Displacements are shorts (16 bits per bucket, about 3 bits a name) unless there are so many names
+that the last buckets can't find a free slot within 65536 tries, then they're ints.
+The slot int is the bigger part, so the section comes to about 35 bits a name. It takes the place
+of the sorted ids the dictionary had for the binary search (32 bits a name), which version 3 files
+leave out, so names.dat comes out about 3 bits a name bigger than before and a lot smaller than a
+hash map of names to ids, but not the 3 bits a name a hash with no ids in it would be.
+Lookups read the section straight out of the mapped names.dat, it's laid out as
+    long seed, int slots, int buckets, int id bits, int bytes per displacement,
+    the displacements (padded to 4 bytes), int[slots]
+*/
+public class NamePerfectHash {
+    public static final int NAMES_PER_BUCKET = 5;
+    private static final int HEADER = 24;
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final long seed;
+    private final int slots;
+    private final int buckets;
+    private final int idBits;
+    private final boolean wide; //int displacements instead of shorts
+    private final int table;    //where the int[] of slots starts
+
+    private NamePerfectHash(ByteBuffer buffer, int offset){
+        this.buffer = buffer;
+        this.offset = offset;
+        seed = buffer.getLong(offset);
+        slots = buffer.getInt(offset+8);
+        buckets = buffer.getInt(offset+12);
+        idBits = buffer.getInt(offset+16);
+        wide = buffer.getInt(offset+20) == 4;
+        table = offset + HEADER + (wide ? 4*buckets : 4*((buckets+1)/2));
+    }
+
+    public static NamePerfectHash read(ByteBuffer buffer, int offset){
+        return new NamePerfectHash(buffer, offset);
+    }
+
+    //the id whose slot this name lands in, if the fingerprint matches, otherwise -1
+    public int candidate(CharSequence name){
+        return candidate(NameBloom.hash(name));
+    }
+
+    //the same from NameBloom.hash() of the name, so a lookup only hashes it once
+    int candidate(long hash){
+        if(slots == 0){
+            return -1;
+        }
+        int bucket = bucket(hash, buckets);
+        int displacement = wide ? buffer.getInt(offset + HEADER + 4*bucket) : buffer.getShort(offset + HEADER + 2*bucket) & 0xFFFF;
+        int entry = buffer.getInt(table + 4*slot(hash, seed, displacement, slots));
+        if(idBits < 32 && (entry >>> idBits) != fingerprint(hash, idBits)){
+            return -1;
+        }
+        return idBits == 32 ? entry : entry & ((1 << idBits)-1);
+    }
+
+    public int slots(){
+        return slots;
+    }
+
+    //what the whole section takes up in bits per name, displacements and slots
+    public double bitsPerName(){
+        return slots == 0 ? 0 : 8.0*(table + 4L*slots - offset)/slots;
+    }
+
+    //builds the section for names in id order, the names can't repeat (ignoring case)
+    public static void write(String[] names, DataOutputStream out) throws IOException {
+        int n = names.length;
+        long[] hashes = new long[n];
+        for(int id = 0; id<n; id++){
+            hashes[id] = NameBloom.hash(names[id]);
+        }
+        int buckets = Math.max(1, (n+NAMES_PER_BUCKET-1)/NAMES_PER_BUCKET);
+        int idBits = Math.max(1, 32-Integer.numberOfLeadingZeros(Math.max(n-1, 1)));
+        int[] displacements = new int[buckets];
+        boolean wide = false;
+        long seed = 0;
+        int[] slotIds = place(hashes, buckets, seed, 0xFFFF, displacements);
+        while(slotIds == null){ //a bucket ran out of short displacements, try again with ints
+            if(wide && ++seed == 4){
+                throw new IOException("Couldn't build a perfect hash, two names have the same hash");
+            }
+            wide = true;
+            slotIds = place(hashes, buckets, seed, 1 << 26, displacements);
+        }
+        out.writeLong(seed);
+        out.writeInt(n);
+        out.writeInt(buckets);
+        out.writeInt(idBits);
+        out.writeInt(wide ? 4 : 2);
+        for(int displacement : displacements){
+            if(wide){
+                out.writeInt(displacement);
+            } else{
+                out.writeShort(displacement);
+            }
+        }
+        if(!wide && buckets % 2 == 1){
+            out.writeShort(0);
+        }
+        for(int slot = 0; slot<n; slot++){
+            int id = slotIds[slot];
+            out.writeInt(idBits == 32 ? id : (fingerprint(hashes[id], idBits) << idBits) | id);
+        }
+    }
+
+    //CHD: the biggest buckets pick their displacement first while most slots are still free,
+    //returns which id ended up in each slot, or null if some bucket ran out of displacements
+    private static int[] place(long[] hashes, int buckets, long seed, int maxDisplacement, int[] displacements){
+        int n = hashes.length;
+        //ids grouped by bucket with a counting sort
+        int[] start = new int[buckets+1];
+        for(long hash : hashes){
+            start[bucket(hash, buckets)+1]++;
+        }
+        for(int b = 0; b<buckets; b++){
+            start[b+1] += start[b];
+        }
+        int[] members = new int[n];
+        int[] filled = Arrays.copyOf(start, buckets);
+        for(int id = 0; id<n; id++){
+            members[filled[bucket(hashes[id], buckets)]++] = id;
+        }
+        //biggest bucket first, size in the high half so one sort does it
+        long[] order = new long[buckets];
+        for(int b = 0; b<buckets; b++){
+            order[b] = ((long)(start[b+1]-start[b]) << 32) | b;
+        }
+        Arrays.sort(order);
+
+        int[] slotIds = new int[n];
+        Arrays.fill(slotIds, -1);
+        int[] tried = new int[NAMES_PER_BUCKET*4];
+        for(int i = buckets-1; i >= 0; i--){
+            int b = (int)order[i];
+            int size = start[b+1]-start[b];
+            if(size == 0){
+                break; //the rest are empty too
+            }
+            if(tried.length < size){
+                tried = new int[size];
+            }
+            int displacement = 0;
+            while(!fits(hashes, members, start[b], size, seed, displacement, slotIds, tried)){
+                if(++displacement > maxDisplacement){
+                    return null;
+                }
+            }
+            displacements[b] = displacement;
+            for(int k = 0; k<size; k++){
+                slotIds[tried[k]] = members[start[b]+k];
+            }
+        }
+        return slotIds;
+    }
+
+    //whether every name in the bucket lands on its own free slot with this displacement
+    private static boolean fits(long[] hashes, int[] members, int first, int size, long seed, int displacement,
+                                int[] slotIds, int[] tried){
+        for(int k = 0; k<size; k++){
+            int slot = slot(hashes[members[first+k]], seed, displacement, slotIds.length);
+            if(slotIds[slot] >= 0){
+                return false;
+            }
+            for(int j = 0; j<k; j++){
+                if(tried[j] == slot){
+                    return false;
+                }
+            }
+            tried[k] = slot;
+        }
+        return true;
+    }
+
+    //the top 32 bits times the count, shifted back down, spreads them over 0 to count-1 without dividing
+    private static int bucket(long hash, int buckets){
+        return (int)(((hash >>> 32) * buckets) >>> 32);
+    }
+
+    private static int slot(long hash, long seed, int displacement, int slots){
+        long h = hash ^ (seed*0x9E3779B97F4A7C15L) ^ (displacement*0xC2B2AE3D27D4EB4FL);
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 32;
+        return (int)(((h >>> 32) * slots) >>> 32);
+    }
+
+    //the low bits of the hash, which the bucket doesn't use, in whatever room the id leaves
+    private static int fingerprint(long hash, int idBits){
+        return (int)(hash & ((1L << (32-idBits))-1));
+    }
+}
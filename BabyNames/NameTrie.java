@@ -0,0 +1,209 @@
+import java.util.Arrays;
+
+/*
+A trie over every name (lowercase) for autocompleting what someone has started typing.
+Every node already has its k most popular names worked out when the trie is built,
+so completing a prefix is just walking down to the node and handing back its list.
+The nodes are parallel arrays instead of objects to keep it small.
+Popularity is the best rank a name had in any column, names that were never ranked go last.
+*/
+public class NameTrie {
+    public static final int TOP_K = 10;
+
+    private char[] label = new char[64];
+    private int[] firstChild = new int[64];
+    private int[] nextSibling = new int[64];
+    private int[] terminal = new int[64]; //id of the name that ends here, or -1
+    private int[][] top;                  //top[node] = ids of its best names, best first
+    private int nodes;
+    private int[] bestRank;               //bestRank[id]
+    private final RankTable table;
+    private final int k;
+    private final int columnsSeen;
+
+    public NameTrie(RankTable table){
+        this(table, TOP_K);
+    }
+
+    public NameTrie(RankTable table, int k){
+        this.table = table;
+        this.k = k;
+        bestRank = new int[table.size()];
+        newNode('\0');
+        for(int id = 0; id<table.size(); id++){
+            bestRank[id] = bestRank(table, id);
+            int node = path(id); //path() can grow terminal so it has to run first
+            terminal[node] = id;
+        }
+        columnsSeen = table.columns();
+        buildTop(k);
+    }
+
+    //a copy caught up with a newer table that only added names and columns to this one's (an --append),
+    //this trie is left alone for whoever is still using it
+    //a new column can only make a name's best rank better, so every name that got
+    //better just moves up in the lists along its own path and nothing else needs redoing
+    public NameTrie extend(RankTable newer){
+        return new NameTrie(this, newer);
+    }
+
+    private NameTrie(NameTrie old, RankTable newer){
+        table = newer;
+        k = old.k;
+        nodes = old.nodes;
+        label = old.label.clone();
+        firstChild = old.firstChild.clone();
+        nextSibling = old.nextSibling.clone();
+        terminal = old.terminal.clone();
+        top = old.top.clone(); //promote() puts new lists in, it never changes one
+        int oldSize = old.bestRank.length;
+        bestRank = Arrays.copyOf(old.bestRank, newer.size());
+        for(int c = old.columnsSeen; c<newer.columns(); c++){
+            for(int id = 0; id<oldSize; id++){
+                int rank = newer.rank(id, c);
+                if(rank != 0 && rank < bestRank[id]){
+                    bestRank[id] = rank;
+                    promote(id);
+                }
+            }
+        }
+        for(int id = oldSize; id<newer.size(); id++){
+            bestRank[id] = bestRank(newer, id);
+            int node = path(id);
+            terminal[node] = id;
+            promote(id);
+        }
+        columnsSeen = newer.columns();
+    }
+
+    //ids of the most popular names starting with the prefix, best first, don't change the array
+    public int[] complete(CharSequence prefix){
+        int node = 0;
+        for(int i = 0; i<prefix.length() && node >= 0; i++){
+            node = child(node, Character.toLowerCase(prefix.charAt(i)), false);
+        }
+        return node < 0 ? new int[0] : top[node];
+    }
+
+    //the lowest rank a name ever had, or Integer.MAX_VALUE if it was never ranked
+    public int bestRank(int id){
+        return bestRank[id];
+    }
+
+    public int nodeCount(){
+        return nodes;
+    }
+
+    static int bestRank(RankTable table, int id){
+        int best = Integer.MAX_VALUE;
+        for(int c = 0; c<table.columns(); c++){
+            int rank = table.rank(id, c);
+            if(rank != 0 && rank < best){
+                best = rank;
+            }
+        }
+        return best;
+    }
+
+    //the node where the name ends, making any nodes that aren't there yet
+    private int path(int id){
+        String name = table.name(id);
+        int node = 0;
+        for(int i = 0; i<name.length(); i++){
+            node = child(node, Character.toLowerCase(name.charAt(i)), true);
+        }
+        return node;
+    }
+
+    //puts the id where it now belongs in the list of every node from the root down to its name
+    private void promote(int id){
+        if(top.length < nodes){
+            int built = top.length;
+            top = Arrays.copyOf(top, label.length);
+            Arrays.fill(top, built, top.length, new int[0]);
+        }
+        String name = table.name(id);
+        int node = 0;
+        int[] list = new int[k+1];
+        for(int i = 0; i<=name.length(); i++){
+            int count = 0;
+            for(int other : top[node]){
+                if(other != id){
+                    list[count++] = other;
+                }
+            }
+            top[node] = Arrays.copyOf(list, insert(list, count, k, id));
+            if(i < name.length()){
+                node = child(node, Character.toLowerCase(name.charAt(i)), false);
+            }
+        }
+    }
+
+    private int child(int node, char c, boolean create){
+        int previous = -1;
+        for(int child = firstChild[node]; child >= 0; child = nextSibling[child]){
+            if(label[child] == c){
+                return child;
+            }
+            previous = child;
+        }
+        if(!create){
+            return -1;
+        }
+        int child = newNode(c);
+        if(previous < 0){
+            firstChild[node] = child;
+        } else{
+            nextSibling[previous] = child;
+        }
+        return child;
+    }
+
+    private int newNode(char c){
+        if(nodes == label.length){
+            label = Arrays.copyOf(label, nodes*2);
+            firstChild = Arrays.copyOf(firstChild, nodes*2);
+            nextSibling = Arrays.copyOf(nextSibling, nodes*2);
+            terminal = Arrays.copyOf(terminal, nodes*2);
+        }
+        label[nodes] = c;
+        firstChild[nodes] = -1;
+        nextSibling[nodes] = -1;
+        terminal[nodes] = -1;
+        return nodes++;
+    }
+
+    //children are always made after their parent, so going backwards
+    //means a node's children are done by the time it gets merged
+    private void buildTop(int k){
+        top = new int[nodes][];
+        int[] merged = new int[k+1];
+        for(int node = nodes-1; node >= 0; node--){
+            int count = 0;
+            if(terminal[node] >= 0){
+                merged[count++] = terminal[node];
+            }
+            for(int child = firstChild[node]; child >= 0; child = nextSibling[child]){
+                for(int id : top[child]){
+                    count = insert(merged, count, k, id);
+                }
+            }
+            top[node] = Arrays.copyOf(merged, count);
+        }
+    }
+
+    //puts the id into the sorted list if it's good enough, returns the new length
+    private int insert(int[] list, int count, int k, int id){
+        int i = count;
+        while(i > 0 && better(id, list[i-1])){
+            list[i] = list[i-1];
+            i--;
+        }
+        list[i] = id;
+        return Math.min(count+1, k);
+    }
+
+    private boolean better(int a, int b){
+        return bestRank[a] < bestRank[b] || (bestRank[a] == bestRank[b] && a < b);
+    }
+}
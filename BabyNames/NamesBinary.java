@@ -0,0 +1,292 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*
+Writes a RankTable out as names.dat, a binary file that MappedNames can map straight into memory.
+Everything is big endian (what DataOutputStream and ByteBuffer both use by default).
+
+header, 56 bytes
+    int  magic "BNAM"
+    int  format version
+    int  start year
+    int  year step (10 for decades, 1 for yearly data)
+    int  name count
+    int  column count
+    long where the dictionary starts
+    long where the column table starts
+    long where the extra sections start, 0 if there aren't any
+    long data version, goes up every time a column is appended (not in version 1 files)
+dictionary
+    int[nameCount+1] where each name starts in the name bytes
+    int[nameCount]   name ids sorted by case-folded name, for binary search (only up to version 2,
+                     version 3 files always have the "MPHF" section and look names up with that)
+    byte[]           the names, one byte per char
+column table
+    one (long offset, int length) per column
+columns
+    length unsigned shorts per column, ids past the length are unranked
+extra sections
+    int count, then one (int tag, long offset, int length) per section, then the sections
+    "BLOM" the NameBloom over every name, so lookups of names that aren't there stop early
+    "MPHF" the NamePerfectHash from every name to its id, used instead of the binary search
+    a reader skips any tag it doesn't know
+
+Columns carry their own length so a column written before more names were added
+still works, and the column table is just a list so yearly data fits without a new reader.
+That is also what lets appendColumn() add a year by writing at the end of the file:
+the new column, a new column table, a new dictionary and extra sections if there are new names,
+and then the header.
+The old column table and dictionary are left behind unused, and since nothing the old header
+points at gets written over, a reader (or a mapping made before) sees either all of the old data or all of the new.
+write() makes the whole file under another name and renames it over the old one, so it never
+cuts short a names.dat something has mapped.
+*/
+public class NamesBinary {
+    public static final int MAGIC = 0x424E414D;
+    public static final int VERSION = 3;
+    public static final int HEADER_SIZE = 56;
+    public static final int COLUMN_ENTRY_SIZE = 12;
+    public static final int MAX_RANK = 0xFFFF; //ranks are unsigned shorts
+    public static final int SECTION_ENTRY_SIZE = 16;
+    public static final int BLOOM_SECTION = 0x424C4F4D; //"BLOM"
+    public static final int HASH_SECTION = 0x4D504846;  //"MPHF"
+
+    public static void write(RankTable table, File file) throws IOException {
+        int count = table.size();
+        int columns = table.columns();
+        String[] names = new String[count];
+        for(int id = 0; id<count; id++){
+            names[id] = table.name(id);
+        }
+        byte[] dictionary = dictionary(names, false);
+        long dictOffset = HEADER_SIZE;
+        long tocOffset = dictOffset + dictionary.length;
+        long columnOffset = tocOffset + (long)COLUMN_ENTRY_SIZE*columns;
+        long extOffset = columnOffset + 2L*count*columns;
+        byte[] extras = extras(names, extOffset);
+
+        File partial = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".partial");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(partial), 1 << 16));
+        boolean written = false;
+        try{
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(table.startYear());
+            out.writeInt(table.yearStep());
+            out.writeInt(count);
+            out.writeInt(columns);
+            out.writeLong(dictOffset);
+            out.writeLong(tocOffset);
+            out.writeLong(extOffset);
+            out.writeLong(table.version());
+            out.write(dictionary);
+            for(int c = 0; c<columns; c++){
+                out.writeLong(columnOffset + 2L*count*c);
+                out.writeInt(count);
+            }
+            for(int c = 0; c<columns; c++){
+                for(int id = 0; id<count; id++){
+                    int rank = table.rank(id, c);
+                    if(rank < 0 || rank > MAX_RANK){
+                        throw tooBig(table.name(id), rank);
+                    }
+                    out.writeShort(rank);
+                }
+            }
+            out.write(extras);
+            out.close();
+            Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            written = true;
+        } finally{
+            out.close();
+            if(!written){
+                partial.delete();
+            }
+        }
+    }
+
+    //adds the next year or decade to a names.dat without rewriting the columns already in it,
+    //names that aren't in the file yet get ids after the old ones, returns how many were new
+    public static int appendColumn(File file, String[] names, int[] ranks) throws IOException {
+        MappedNames old = MappedNames.open(file);
+        if(old.formatVersion() < 2){ //version 1 headers have no room for the data version
+            throw new IOException(file + " is an older names.dat, run --convert to remake it first");
+        }
+        for(int i = 0; i<ranks.length; i++){ //checked before anything gets written
+            if(ranks[i] < 0 || ranks[i] > MAX_RANK){
+                throw tooBig(names[i], ranks[i]);
+            }
+        }
+        int oldSize = old.size();
+        ArrayList<String> added = new ArrayList<String>();
+        HashMap<String, Integer> addedIds = new HashMap<String, Integer>();
+        int[] ids = new int[names.length];
+        for(int i = 0; i<names.length; i++){
+            int id = old.find(names[i]);
+            if(id < 0){
+                String folded = names[i].toLowerCase();
+                Integer known = addedIds.get(folded);
+                if(known == null){
+                    known = oldSize + added.size();
+                    addedIds.put(folded, known);
+                    added.add(names[i]);
+                }
+                id = known;
+            }
+            ids[i] = id;
+        }
+        int size = oldSize + added.size();
+        int[] column = new int[size];
+        int[] line = new int[size]; //where each id was first seen, +1 so 0 means not yet
+        for(int i = 0; i<ids.length; i++){
+            if(line[ids[i]] > 0){ //the same name twice, maybe in different case, one of the ranks would just be lost
+                throw new IOException(names[line[ids[i]]-1] + " is in the list twice (again as " + names[i] + "), names.dat wasn't changed");
+            }
+            line[ids[i]] = i+1;
+            column[ids[i]] = ranks[i];
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try{
+            long columnOffset = raf.length();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(2*size + 1024);
+            DataOutputStream out = new DataOutputStream(bytes);
+            for(int rank : column){
+                out.writeShort(rank);
+            }
+            long dictOffset = old.dictionaryOffset();
+            long extOffset = old.extrasOffset();
+            if(!added.isEmpty()){
+                String[] all = new String[size];
+                for(int id = 0; id<oldSize; id++){
+                    all[id] = old.name(id);
+                }
+                for(int i = 0; i<added.size(); i++){
+                    all[oldSize+i] = added.get(i);
+                }
+                dictOffset = columnOffset + out.size();
+                out.write(dictionary(all, old.formatVersion() < 3)); //a version 2 file still gets the sorted ids
+                extOffset = columnOffset + out.size(); //the old bloom filter doesn't know the new names
+                out.write(extras(all, extOffset));
+            }
+            long tocOffset = columnOffset + out.size();
+            for(int c = 0; c<old.columns(); c++){
+                out.writeLong(old.columnOffset(c));
+                out.writeInt(old.columnLength(c));
+            }
+            out.writeLong(columnOffset);
+            out.writeInt(size);
+            raf.seek(columnOffset);
+            raf.write(bytes.toByteArray());
+
+            //the header gets updated last and in one write, until then anything opening the file still sees the old data
+            bytes.reset();
+            out.writeInt(size);
+            out.writeInt(old.columns()+1);
+            out.writeLong(dictOffset);
+            out.writeLong(tocOffset);
+            out.writeLong(extOffset);
+            out.writeLong(old.version()+1);
+            raf.seek(16);
+            raf.write(bytes.toByteArray());
+        } finally{
+            raf.close();
+        }
+        return added.size();
+    }
+
+    //a rank that doesn't fit in an unsigned short would come back as some other number, so it's refused
+    private static IOException tooBig(String name, int rank){
+        return new IOException(name + " has rank " + rank + ", names.dat can only hold ranks from 0 to " + MAX_RANK);
+    }
+
+    //the dictionary section for names in id order, the sorted ids are only for version 2 files
+    static byte[] dictionary(String[] names, boolean sorted) throws IOException {
+        byte[][] bytes = new byte[names.length][];
+        int total = 0;
+        for(int id = 0; id<names.length; id++){
+            bytes[id] = names[id].getBytes(StandardCharsets.ISO_8859_1);
+            total += bytes[id].length;
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream((sorted ? 8 : 4)*names.length + 4 + total);
+        DataOutputStream out = new DataOutputStream(buffer);
+        int position = 0;
+        for(byte[] name : bytes){
+            out.writeInt(position);
+            position += name.length;
+        }
+        out.writeInt(position);
+        if(sorted){
+            for(int id : sortedIds(names)){
+                out.writeInt(id);
+            }
+        }
+        for(byte[] name : bytes){
+            out.write(name);
+        }
+        return buffer.toByteArray();
+    }
+
+    //the extra sections for these names, for a file where they start at offset
+    static byte[] extras(String[] names, long offset) throws IOException {
+        NameBloom bloom = new NameBloom(names.length);
+        for(String name : names){
+            bloom.add(name);
+        }
+        ByteArrayOutputStream bloomSection = new ByteArrayOutputStream();
+        bloom.write(new DataOutputStream(bloomSection));
+        ByteArrayOutputStream hashSection = new ByteArrayOutputStream();
+        NamePerfectHash.write(names, new DataOutputStream(hashSection));
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bloomSection.size() + hashSection.size() + 64);
+        DataOutputStream out = new DataOutputStream(buffer);
+        long sections = offset + 4 + 2*SECTION_ENTRY_SIZE;
+        out.writeInt(2);
+        out.writeInt(BLOOM_SECTION);
+        out.writeLong(sections);
+        out.writeInt(bloomSection.size());
+        out.writeInt(HASH_SECTION);
+        out.writeLong(sections + bloomSection.size());
+        out.writeInt(hashSection.size());
+        bloomSection.writeTo(out);
+        hashSection.writeTo(out);
+        return buffer.toByteArray();
+    }
+
+    //ids ordered the same way MappedNames searches them
+    static int[] sortedIds(String[] names){
+        Integer[] ids = new Integer[names.length];
+        for(int id = 0; id<ids.length; id++){
+            ids[id] = id;
+        }
+        Arrays.sort(ids, (a, b) -> compareFolded(names[a], names[b]));
+        int[] sorted = new int[ids.length];
+        for(int i = 0; i<ids.length; i++){
+            sorted[i] = ids[i];
+        }
+        return sorted;
+    }
+
+    //compares two names by their lowercase chars
+    public static int compareFolded(CharSequence a, CharSequence b){
+        int length = Math.min(a.length(), b.length());
+        for(int i = 0; i<length; i++){
+            int diff = Character.toLowerCase(a.charAt(i)) - Character.toLowerCase(b.charAt(i));
+            if(diff != 0){
+                return diff;
+            }
+        }
+        return a.length() - b.length();
+    }
+}
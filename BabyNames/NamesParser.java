@@ -0,0 +1,266 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+
+/*
+Reads names.txt byte by byte instead of going through Scanner.
+Digits get turned into ints as they are read and names are compared
+against the bytes in the file, so no Strings get made while scanning.
+Works on a mapped file or on a ByteBuffer.wrap() of a byte[].
+The file can start with a header line like "# 1880 1" (start year, then years per column),
+without one it is taken to start at 1900 with a column per decade.
+*/
+public class NamesParser {
+    //gets called once per line, the ranks array is reused so copy it if you keep it
+    public interface RecordHandler {
+        void record(NamesParser parser, int nameStart, int nameLength, int[] ranks);
+    }
+
+    private final ByteBuffer data;
+    private final int[] header = {GabrielleDobkinBabyNames.YEAR, 10};
+    private final int dataStart; //where the first name is, after the header if there is one
+    private final int columns;
+    private final NameView view = new NameView();
+
+    public NamesParser(ByteBuffer data){
+        this.data = data;
+        this.dataStart = readHeader();
+        this.columns = countColumns();
+    }
+
+    public static NamesParser open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try{
+            FileChannel channel = raf.getChannel();
+            return new NamesParser(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally{
+            raf.close();
+        }
+    }
+
+    //reads the whole file into memory, so it can be rewritten or cut short while this is parsing it
+    public static NamesParser read(File file) throws IOException {
+        return new NamesParser(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+    }
+
+    //how many ranks are on each line, taken from the first line
+    public int columns(){
+        return columns;
+    }
+
+    public int startYear(){
+        return header[0];
+    }
+
+    public int yearStep(){
+        return header[1];
+    }
+
+    //goes through every line and returns how many there were
+    public int parse(RecordHandler handler){
+        int[] ranks = new int[columns];
+        int records = 0;
+        int position = dataStart;
+        int limit = data.limit();
+        while(position < limit){
+            int nameStart = position;
+            position = tokenEnd(position);
+            int nameLength = position-nameStart;
+            position = readRanks(position, ranks);
+            handler.record(this, nameStart, nameLength, ranks);
+            records++;
+            position = skipSpace(position);
+        }
+        return records;
+    }
+
+    //scans for the name and copies its ranks into the array, false if it isn't in the file
+    public boolean find(CharSequence name, int[] ranks){
+        int position = dataStart;
+        int limit = data.limit();
+        while(position < limit){
+            int nameStart = position;
+            position = tokenEnd(position);
+            if(nameMatches(nameStart, position-nameStart, name)){
+                readRanks(position, ranks);
+                return true;
+            }
+            position = skipSpace(lineEnd(position)); //the ranks don't need decoding for a name that doesn't match
+        }
+        return false;
+    }
+
+    public boolean nameMatches(int nameStart, int nameLength, CharSequence name){
+        if(nameLength != name.length()){
+            return false;
+        }
+        for(int i = 0; i<nameLength; i++){
+            char c = (char)(data.get(nameStart+i) & 0xFF);
+            if(c != name.charAt(i) && Character.toLowerCase(c) != Character.toLowerCase(name.charAt(i))){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //lets the name be looked up in a NameIndex without copying it, the same view is handed out every time
+    public CharSequence nameView(int nameStart, int nameLength){
+        view.start = nameStart;
+        view.length = nameLength;
+        return view;
+    }
+
+    //only for when the name has to be kept, like in NameIndex
+    public String name(int nameStart, int nameLength){
+        char[] chars = new char[nameLength];
+        for(int i = 0; i<nameLength; i++){
+            chars[i] = (char)(data.get(nameStart+i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    //fills in the ranks after a name and returns where it stopped, missing ranks are left as 0
+    private int readRanks(int position, int[] ranks){
+        int limit = data.limit();
+        for(int i = 0; i<ranks.length; i++){
+            while(position < limit && isBlank(data.get(position))){
+                position++;
+            }
+            int rank = 0;
+            if(position < limit && !isLineEnd(data.get(position))){
+                byte b = data.get(position);
+                while(b >= '0' && b <= '9'){
+                    rank = rank*10 + (b-'0');
+                    if(++position == limit){
+                        break;
+                    }
+                    b = data.get(position);
+                }
+                position = tokenEnd(position); //skips typos like the n in "428n"
+            }
+            ranks[i] = rank;
+        }
+        return lineEnd(position);
+    }
+
+    //reads the numbers after a # on the first line and returns where the names start
+    private int readHeader(){
+        int position = skipSpace(0);
+        if(position == data.limit() || data.get(position) != '#'){
+            return position;
+        }
+        int[] values = new int[header.length];
+        readRanks(position+1, values); //same layout as a line of ranks, missing ones come back as 0
+        for(int i = 0; i<values.length; i++){
+            if(values[i] != 0){
+                header[i] = values[i];
+            }
+        }
+        return skipSpace(lineEnd(position));
+    }
+
+    //the line number (counting the header) of the first line without columns() ranks, 0 if they all have them
+    //a file that was cut off partway through a line has one like that at the end
+    public int badLine(){
+        int line = 1;
+        for(int position = 0; position < dataStart; position++){
+            if(data.get(position) == '\n'){
+                line++;
+            }
+        }
+        int limit = data.limit();
+        for(int position = dataStart; position < limit; line++){
+            if(countColumns(position) != columns){
+                return line;
+            }
+            position = lineEnd(position);
+            if(position < limit){
+                position++;
+            }
+            while(position < limit && (data.get(position) == '\r' || data.get(position) == '\n')){
+                if(data.get(position) == '\n'){
+                    line++;
+                }
+                position++;
+            }
+        }
+        return 0;
+    }
+
+    private int countColumns(){
+        return countColumns(dataStart);
+    }
+
+    //how many ranks are on the line starting at the position
+    private int countColumns(int lineStart){
+        int position = tokenEnd(lineStart);
+        int count = 0;
+        int limit = data.limit();
+        while(true){
+            while(position < limit && isBlank(data.get(position))){
+                position++;
+            }
+            if(position == limit || isLineEnd(data.get(position))){
+                return count;
+            }
+            count++;
+            position = tokenEnd(position);
+        }
+    }
+
+    private int tokenEnd(int position){
+        int limit = data.limit();
+        while(position < limit && !isBlank(data.get(position)) && !isLineEnd(data.get(position))){
+            position++;
+        }
+        return position;
+    }
+
+    private int lineEnd(int position){
+        int limit = data.limit();
+        while(position < limit && data.get(position) != '\n'){
+            position++;
+        }
+        return position;
+    }
+
+    private int skipSpace(int position){
+        int limit = data.limit();
+        while(position < limit && data.get(position) <= ' '){
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isBlank(byte b){
+        return b == ' ' || b == '\t';
+    }
+
+    private static boolean isLineEnd(byte b){
+        return b == '\n' || b == '\r';
+    }
+
+    private class NameView implements CharSequence {
+        int start;
+        int length;
+
+        public int length(){
+            return length;
+        }
+
+        public char charAt(int index){
+            return (char)(data.get(start+index) & 0xFF);
+        }
+
+        public CharSequence subSequence(int from, int to){
+            return name(start+from, to-from);
+        }
+
+        public String toString(){
+            return name(start, length);
+        }
+    }
+}
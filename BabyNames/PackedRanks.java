@@ -0,0 +1,135 @@
+/*
+The same ranks as a NameIndex but squeezed into as few bits as the biggest rank needs,
+which is 10 bits for names.txt since nothing goes past 1000, instead of a whole int each.
+A name's ranks sit next to each other in one long[] (row per name) so getting a whole
+series or going through every name in order is one pass over the bits.
+The names and the lookup are a NameIndex with no ranks in it, so find() works the same.
+*/
+public class PackedRanks implements RankTable {
+    private final NameIndex names;
+    private final int columns;
+    private final int startYear;
+    private final int yearStep;
+    private final long version;
+    private final int bits;   //bits per rank
+    private final long mask;
+    private final long[] words;
+
+    public PackedRanks(RankTable table){
+        columns = table.columns();
+        startYear = table.startYear();
+        yearStep = table.yearStep();
+        version = table.version();
+        names = new NameIndex(columns, startYear, yearStep);
+        int max = 1;
+        for(int id = 0; id<table.size(); id++){
+            names.add(table.name(id), null); //null leaves the index's own rank arrays empty
+            for(int c = 0; c<columns; c++){
+                max = Math.max(max, table.rank(id, c));
+            }
+        }
+        bits = 32-Integer.numberOfLeadingZeros(max);
+        mask = (1L << bits)-1;
+        words = new long[(int)(((long)table.size()*columns*bits + 63) >>> 6)];
+        long position = 0;
+        for(int id = 0; id<table.size(); id++){
+            for(int c = 0; c<columns; c++){
+                put(position, table.rank(id, c));
+                position += bits;
+            }
+        }
+    }
+
+    public int rank(int id, int column){
+        return get(((long)id*columns + column)*bits);
+    }
+
+    //one name's ranks into out, which has to be at least columns() long
+    public int[] series(int id, int[] out){
+        return decode(id, 1, out);
+    }
+
+    //the ranks of count names in a row starting at id, laid out like TrendAnalytics wants them
+    //(out[i*columns + column]), reading the words in order instead of working out every position
+    public int[] decode(int id, int count, int[] out){
+        int values = count*columns;
+        long position = (long)id*columns*bits;
+        int word = (int)(position >>> 6);
+        int shift = (int)(position & 63);
+        long current = values > 0 ? words[word] : 0;
+        for(int i = 0; i<values; i++){
+            long value = current >>> shift;
+            shift += bits;
+            if(shift >= 64){
+                shift -= 64;
+                current = ++word < words.length ? words[word] : 0;
+                if(shift > 0){
+                    value |= current << (bits-shift);
+                }
+            }
+            out[i] = (int)(value & mask);
+        }
+        return out;
+    }
+
+    public int bitsPerRank(){
+        return bits;
+    }
+
+    //what the packed ranks take up, the long[] and its header
+    public long bytes(){
+        return 16 + 8L*words.length;
+    }
+
+    //what the same ranks take up as NameIndex's int[column][id], one int each plus an array header per column
+    public static long intTableBytes(RankTable table){
+        return 16 + table.columns()*(8 + 16 + 4L*table.size());
+    }
+
+    public int size(){
+        return names.size();
+    }
+
+    public int columns(){
+        return columns;
+    }
+
+    public int startYear(){
+        return startYear;
+    }
+
+    public int yearStep(){
+        return yearStep;
+    }
+
+    public long version(){
+        return version;
+    }
+
+    public String name(int id){
+        return names.name(id);
+    }
+
+    public int find(CharSequence name){
+        return names.find(name);
+    }
+
+    private int get(long position){
+        int word = (int)(position >>> 6);
+        int shift = (int)(position & 63);
+        long value = words[word] >>> shift;
+        if(shift+bits > 64){ //the rank carries on into the next word
+            value |= words[word+1] << (64-shift);
+        }
+        return (int)(value & mask);
+    }
+
+    private void put(long position, int rank){
+        int word = (int)(position >>> 6);
+        int shift = (int)(position & 63);
+        words[word] |= (rank & mask) << shift;
+        if(shift+bits > 64){
+            words[word+1] |= (rank & mask) >>> (64-shift);
+        }
+    }
+}
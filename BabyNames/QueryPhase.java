@@ -0,0 +1,78 @@
+import java.io.PrintStream;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+One step of answering a name: opening names.txt, building the indexes the REPL keeps
+(the trie and the BK-tree), looking the name up, printing the ranks or drawing the chart. Each one is a JFR event, so a recording
+(java -XX:StartFlightRecording ...) shows where a slow query spent its time, and it also
+goes in a LatencyHistogram per phase that --stats prints when the run is over.
+    QueryPhase phase = QueryPhase.start(QueryPhase.LOOKUP, name);
+    ...
+    phase.stop();
+*/
+@Name("BabyNames.QueryPhase")
+@Label("Query Phase")
+@Category("BabyNames")
+@Description("Time spent in one phase of answering a name")
+public class QueryPhase extends jdk.jfr.Event {
+    public static final String OPEN = "open";
+    public static final String INDEX = "index";
+    public static final String LOOKUP = "lookup";
+    public static final String PRINT = "print";
+    public static final String CHART = "chart";
+    private static final String[] PHASES = {OPEN, INDEX, LOOKUP, PRINT, CHART};
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[PHASES.length];
+    static{
+        for(int i = 0; i<PHASES.length; i++){
+            HISTOGRAMS[i] = new LatencyHistogram();
+        }
+    }
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Name")
+    String name;
+
+    private transient long started; //transient keeps it out of the recording
+
+    public static QueryPhase start(String phase, String name){
+        QueryPhase event = new QueryPhase();
+        event.phase = phase;
+        event.name = name;
+        event.started = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+    public void stop(){
+        long took = System.nanoTime()-started;
+        end();
+        commit(); //does nothing unless a recording wants these
+        histogram(phase).record(took);
+    }
+
+    public static LatencyHistogram histogram(String phase){
+        for(int i = 0; i<PHASES.length; i++){
+            if(PHASES[i].equals(phase)){
+                return HISTOGRAMS[i];
+            }
+        }
+        throw new IllegalArgumentException("No phase called " + phase);
+    }
+
+    //p50 and p99 of every phase that happened at least once
+    public static void printStats(PrintStream out){
+        out.printf("%-8s %8s %12s %12s%n", "phase", "count", "p50 ms", "p99 ms");
+        for(int i = 0; i<PHASES.length; i++){
+            LatencyHistogram histogram = HISTOGRAMS[i];
+            if(histogram.count() > 0){
+                out.printf("%-8s %8d %12.3f %12.3f%n", PHASES[i], histogram.count(),
+                        histogram.percentile(0.5)/1e6, histogram.percentile(0.99)/1e6);
+            }
+        }
+    }
+}
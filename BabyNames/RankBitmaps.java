@@ -0,0 +1,107 @@
+import java.util.Arrays;
+
+/*
+For every column a NameBitmap per bucket of ranks: 1-10, 11-100, 101-500, 501-1000 and unranked.
+Ranks past 1000 go with unranked, the same as the chart draws them.
+A question like "top 100 in the 1950s but unranked by the 2000s" becomes
+top(5, 100).and(unranked(10)), a few word operations, instead of reading every name's ranks.
+*/
+public class RankBitmaps {
+    public static final int[] BUCKET_ENDS = {10, 100, 500, 1000}; //last rank in each bucket
+    public static final int UNRANKED = BUCKET_ENDS.length;        //the bucket number for unranked
+
+    private final RankTable table;
+    private final NameBitmap[][] buckets; //buckets[column][bucket]
+
+    public RankBitmaps(RankTable table){
+        this.table = table;
+        int size = table.size();
+        buckets = new NameBitmap[table.columns()][];
+        long[][] bits = new long[UNRANKED+1][(size+63) >>> 6];
+        for(int c = 0; c<table.columns(); c++){
+            for(long[] bucket : bits){
+                Arrays.fill(bucket, 0);
+            }
+            for(int id = 0; id<size; id++){
+                bits[bucket(table.rank(id, c))][id >>> 6] |= 1L << id;
+            }
+            buckets[c] = new NameBitmap[UNRANKED+1];
+            for(int b = 0; b<=UNRANKED; b++){
+                buckets[c][b] = NameBitmap.of(size, bits[b]);
+            }
+        }
+    }
+
+    //which bucket a rank falls in
+    public static int bucket(int rank){
+        for(int b = 0; b<BUCKET_ENDS.length; b++){
+            if(rank > 0 && rank <= BUCKET_ENDS[b]){
+                return b;
+            }
+        }
+        return UNRANKED;
+    }
+
+    public NameBitmap bucket(int column, int bucket){
+        return buckets[column][bucket];
+    }
+
+    //names ranked from 1 to the rank, which has to be the end of a bucket (10, 100, 500 or 1000)
+    public NameBitmap top(int column, int rank){
+        NameBitmap result = buckets[column][0];
+        for(int b = 0; BUCKET_ENDS[b] != rank; b++){
+            if(b+1 == BUCKET_ENDS.length){
+                throw new IllegalArgumentException("Ranks go in buckets ending at 10, 100, 500 and 1000, not " + rank);
+            }
+            result = result.or(buckets[column][b+1]);
+        }
+        return result;
+    }
+
+    public NameBitmap unranked(int column){
+        return buckets[column][UNRANKED];
+    }
+
+    //a filter written out like "1950:100 and not 2000:unranked or 1900:10", worked out from left to right
+    //every term is year:rank for the names ranked 1 to that rank in the year, or year:unranked
+    public NameBitmap filter(String[] words){
+        NameBitmap result = null;
+        String join = "and";
+        for(int i = 0; i<words.length; i++){
+            String word = words[i].toLowerCase();
+            if(word.equals("and") || word.equals("or")){
+                join = word;
+                continue;
+            }
+            boolean not = word.equals("not");
+            if(not){
+                if(++i == words.length){
+                    throw new IllegalArgumentException("Nothing after not");
+                }
+                word = words[i].toLowerCase();
+            }
+            NameBitmap term = term(word);
+            if(result == null){
+                result = not ? term.not() : term;
+            } else if(join.equals("and")){
+                result = not ? result.andNot(term) : result.and(term);
+            } else{
+                result = result.or(not ? term.not() : term);
+            }
+        }
+        return result == null ? NameBitmap.all(table.size()) : result;
+    }
+
+    private NameBitmap term(String word){
+        int colon = word.indexOf(':');
+        if(colon < 0){
+            throw new IllegalArgumentException("Expected year:rank or year:unranked, not " + word);
+        }
+        int column = RankTable.column(table, Integer.parseInt(word.substring(0, colon)));
+        if(column < 0){
+            throw new IllegalArgumentException("No data for " + word.substring(0, colon));
+        }
+        String what = word.substring(colon+1);
+        return what.equals("unranked") ? unranked(column) : top(column, Integer.parseInt(what));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+One name's ranks in column order along with the years they go with.
+This is what gets handed from the lookup to the printing and the chart,
+so nothing has to be joined into a String and scanned back into ints.
+The array passed in is kept as it is instead of copied, so it is cheap to make.
+*/
+public final class RankSeries {
+    private final String name;
+    private final int startYear;
+    private final int yearStep;
+    private final int[] ranks;
+
+    public RankSeries(String name, int startYear, int yearStep, int[] ranks){
+        this.name = name;
+        this.startYear = startYear;
+        this.yearStep = yearStep;
+        this.ranks = ranks;
+    }
+
+    //the ranks of one name in the table, null if it isn't there
+    public static RankSeries of(RankTable table, String name){
+        int id = table.find(name);
+        return id < 0 ? null : of(table, id);
+    }
+
+    public static RankSeries of(RankTable table, int id){
+        int[] ranks = new int[table.columns()];
+        for(int c = 0; c<ranks.length; c++){
+            ranks[c] = table.rank(id, c);
+        }
+        return new RankSeries(table.name(id), table.startYear(), table.yearStep(), ranks);
+    }
+
+    public String name(){
+        return name;
+    }
+
+    public int length(){
+        return ranks.length;
+    }
+
+    public int rank(int i){
+        return ranks[i];
+    }
+
+    public int year(int i){
+        return startYear + yearStep*i;
+    }
+
+    public int startYear(){
+        return startYear;
+    }
+
+    public int yearStep(){
+        return yearStep;
+    }
+
+    //copies the ranks out, the array has to be at least length() long
+    public int[] copyInto(int[] out){
+        System.arraycopy(ranks, 0, out, 0, ranks.length);
+        return out;
+    }
+}
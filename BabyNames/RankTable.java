@@ -0,0 +1,23 @@
+/*
+Anything that can answer "what rank did this name have in this column".
+Ids run from 0 to size()-1 and columns from 0 to columns()-1,
+column i covers the year startYear()+yearStep()*i and a rank of 0 means unranked.
+version() changes whenever the data does, so anything cached from it can tell it's stale.
+column() goes the other way, from a year to the column it falls in.
+*/
+public interface RankTable {
+    int size();
+    int columns();
+    int startYear();
+    int yearStep();
+    String name(int id);
+    int find(CharSequence name); //-1 if the name isn't there, case doesn't matter
+    int rank(int id, int column);
+    long version();
+
+    //which column a year falls in, -1 if it's outside the data
+    static int column(RankTable table, int year){
+        int column = Math.floorDiv(year-table.startYear(), table.yearStep());
+        return column >= 0 && column < table.columns() ? column : -1;
+    }
+}
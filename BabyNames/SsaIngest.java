@@ -0,0 +1,168 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/*
+Builds the name -> ranks table from the Social Security yobYYYY.txt files
+(one per year, lines of name,sex,count) instead of the already ranked names.txt.
+First every file is parsed in parallel and the names go into one shared dictionary,
+then every year is ranked in parallel by sorting packed (count, id) longs.
+Like names.txt only the top maxRank of each sex get a rank, and a name used for
+both boys and girls keeps whichever rank was better.
+*/
+public class SsaIngest {
+    private final ConcurrentHashMap<String, Integer> dictionary = new ConcurrentHashMap<String, Integer>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private long nanos;
+
+    //one parsed file
+    private static class Year {
+        int year;
+        int count;
+        int[] ids = new int[1024];
+        int[] counts = new int[1024];
+        boolean[] female = new boolean[1024];
+    }
+
+    public NameIndex ingest(File directory, int maxRank) throws IOException {
+        long start = System.nanoTime();
+        File[] files = directory.listFiles((dir, name) -> name.matches("yob\\d{4}\\.txt"));
+        if(files == null || files.length == 0){
+            throw new IOException("No yobYYYY.txt files in " + directory);
+        }
+        Year[] years = new Year[files.length];
+        IOException[] failed = new IOException[1];
+        IntStream.range(0, files.length).parallel().forEach(i -> {
+            try{
+                years[i] = parse(files[i]);
+            } catch(IOException e){
+                failed[0] = e;
+            }
+        });
+        if(failed[0] != null){
+            throw failed[0];
+        }
+
+        //ids were handed out in whatever order the threads got to them, so put them in alphabetical order
+        String[] byId = new String[nextId.get()];
+        for(String name : dictionary.keySet()){
+            byId[dictionary.get(name)] = name;
+        }
+        Integer[] order = new Integer[byId.length];
+        for(int id = 0; id<order.length; id++){
+            order[id] = id;
+        }
+        Arrays.sort(order, (a, b) -> NamesBinary.compareFolded(byId[a], byId[b]));
+        int[] sortedId = new int[byId.length];
+        for(int i = 0; i<order.length; i++){
+            sortedId[order[i]] = i;
+        }
+
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        for(Year year : years){
+            first = Math.min(first, year.year);
+            last = Math.max(last, year.year);
+        }
+        int columns = last-first+1;
+        int[][] ranks = new int[byId.length][columns];
+        int firstYear = first;
+        Arrays.stream(years).parallel().forEach(year -> rank(year, ranks, year.year-firstYear, sortedId, maxRank));
+
+        NameIndex index = new NameIndex(columns, first, 1);
+        for(int i = 0; i<order.length; i++){
+            index.add(byId[order[i]], ranks[i]);
+        }
+        nanos = System.nanoTime()-start;
+        return index;
+    }
+
+    public long rows(){
+        return rows.get();
+    }
+
+    public long bytes(){
+        return bytes.get();
+    }
+
+    public long nanos(){
+        return nanos;
+    }
+
+    private Year parse(File file) throws IOException {
+        byte[] data = Files.readAllBytes(file.toPath());
+        Year year = new Year();
+        year.year = Integer.parseInt(file.getName().substring(3, 7));
+        int position = 0;
+        while(position < data.length){
+            int lineStart = position;
+            while(position < data.length && data[position] != ','){
+                position++;
+            }
+            int nameEnd = position++;
+            if(position >= data.length){
+                break;
+            }
+            boolean female = data[position] == 'F';
+            position += 2; //the sex and the comma after it
+            int count = 0;
+            while(position < data.length && data[position] >= '0' && data[position] <= '9'){
+                count = count*10 + (data[position++]-'0');
+            }
+            while(position < data.length && (data[position] == '\r' || data[position] == '\n')){
+                position++;
+            }
+            if(nameEnd == lineStart){
+                continue;
+            }
+            String name = new String(data, lineStart, nameEnd-lineStart, "ISO-8859-1");
+            Integer id = dictionary.get(name);
+            if(id == null){
+                id = dictionary.computeIfAbsent(name, key -> nextId.getAndIncrement());
+            }
+            if(year.count == year.ids.length){
+                year.ids = Arrays.copyOf(year.ids, year.count*2);
+                year.counts = Arrays.copyOf(year.counts, year.count*2);
+                year.female = Arrays.copyOf(year.female, year.count*2);
+            }
+            year.ids[year.count] = id;
+            year.counts[year.count] = count;
+            year.female[year.count] = female;
+            year.count++;
+        }
+        rows.addAndGet(year.count);
+        bytes.addAndGet(data.length);
+        return year;
+    }
+
+    //ranks each sex of one year by count and writes the better rank into the name's column
+    private static void rank(Year year, int[][] ranks, int column, int[] sortedId, int maxRank){
+        for(int sex = 0; sex<2; sex++){
+            long[] keys = new long[year.count];
+            int count = 0;
+            for(int i = 0; i<year.count; i++){
+                if(year.female[i] == (sex == 1)){
+                    int id = sortedId[year.ids[i]];
+                    //biggest count first, then alphabetical since the ids are
+                    keys[count++] = ((long)(Integer.MAX_VALUE-year.counts[i]) << 32) | id;
+                }
+            }
+            Arrays.parallelSort(keys, 0, count);
+            for(int i = 0; i<Math.min(count, maxRank); i++){
+                int id = (int)keys[i];
+                int rank = i+1;
+                //the same name in two years is in different columns so only sexes can collide, and only within this task
+                if(ranks[id][column] == 0 || rank < ranks[id][column]){
+                    ranks[id][column] = rank;
+                }
+            }
+        }
+    }
+}
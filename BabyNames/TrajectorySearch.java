@@ -0,0 +1,69 @@
+/*
+Finds the names whose ranks moved the most like a given name's over the years.
+Every name's ranks are copied once into one flat float[] (row per name), with unranked
+counted as 1001 like drawingPanel() does, and a search just measures the distance
+to every row. The inner loop is a plain sum over two float arrays so the JIT can
+turn it into vector instructions, which beats a tree at this size.
+*/
+public class TrajectorySearch {
+    private final RankTable table;
+    private final int columns;
+    private final float[] series; //series[id*columns + column]
+
+    public TrajectorySearch(RankTable table){
+        this.table = table;
+        this.columns = table.columns();
+        series = new float[table.size()*columns];
+        for(int id = 0; id<table.size(); id++){
+            for(int c = 0; c<columns; c++){
+                int rank = table.rank(id, c);
+                series[id*columns+c] = rank == 0 || rank > ChartRenderer.UNRANKED ? ChartRenderer.UNRANKED : rank;
+            }
+        }
+    }
+
+    //the k names closest to the id's ranks, closest first, not counting the name itself
+    public int[] similar(int id, int k){
+        float[] query = new float[columns];
+        System.arraycopy(series, id*columns, query, 0, columns);
+        return nearest(query, k, id);
+    }
+
+    //the k names closest to any list of ranks, skip is an id to leave out or -1
+    public int[] nearest(float[] query, int k, int skip){
+        int size = table.size();
+        k = Math.max(0, Math.min(k, skip >= 0 ? size-1 : size)); //a negative k finds nothing instead of indexing best[-1]
+        int[] best = new int[k];
+        float[] bestDistance = new float[best.length];
+        int found = 0;
+        for(int id = 0; id<size; id++){
+            if(id == skip){
+                continue;
+            }
+            float distance = distance(query, id*columns);
+            if(found == k && (k == 0 || distance >= bestDistance[k-1])){
+                continue;
+            }
+            //insertion into the short sorted list of the best so far
+            int i = found < k ? found++ : k-1;
+            while(i > 0 && bestDistance[i-1] > distance){
+                best[i] = best[i-1];
+                bestDistance[i] = bestDistance[i-1];
+                i--;
+            }
+            best[i] = id;
+            bestDistance[i] = distance;
+        }
+        return best;
+    }
+
+    //squared distance, the order is the same as the real distance without the square root
+    private float distance(float[] query, int row){
+        float sum = 0;
+        for(int c = 0; c<columns; c++){
+            float diff = series[row+c] - query[c];
+            sum += diff*diff;
+        }
+        return sum;
+    }
+}
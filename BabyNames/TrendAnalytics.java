@@ -0,0 +1,134 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+Works out how every name moved over time all at once instead of one popRank() at a time.
+All the ranks get copied into one flat int[] (row per name) and the names are split into
+chunks that fork/join works on in parallel, each chunk only writes its own part of the results.
+A rank of 0 means unranked, and like in drawingPanel() it counts as 1001 when measuring movement.
+*/
+public class TrendAnalytics {
+    private static final int CHUNK = 1024;
+
+    private final RankTable table;
+    private final int columns;
+    private final int[] ranks; //ranks[id*columns + column]
+    private final int from;
+    private final int to;
+
+    //results, one per name
+    public final int[] delta;          //how many places it climbed from one column to the other, negative if it fell
+    public final int[] peak;           //column of its best rank, -1 if never ranked
+    public final int[] first;          //first column it was ranked in, -1 if never
+    public final int[] last;           //last column it was ranked in, -1 if never
+    public final double[] volatility;  //standard deviation of the change from one column to the next
+
+    public TrendAnalytics(RankTable table, int from, int to){
+        this.table = table;
+        this.columns = table.columns();
+        this.from = from;
+        this.to = to;
+        int size = table.size();
+        ranks = new int[size*columns];
+        for(int id = 0; id<size; id++){
+            for(int c = 0; c<columns; c++){
+                ranks[id*columns+c] = table.rank(id, c);
+            }
+        }
+        delta = new int[size];
+        peak = new int[size];
+        first = new int[size];
+        last = new int[size];
+        volatility = new double[size];
+        ForkJoinPool.commonPool().invoke(new Chunk(0, size));
+    }
+
+    //the n names that climbed the most, biggest climb first
+    public int[] risers(int n){
+        return sortedByDelta(n, true);
+    }
+
+    //the n names that fell the most, biggest fall first
+    public int[] fallers(int n){
+        return sortedByDelta(n, false);
+    }
+
+    private int[] sortedByDelta(int n, boolean climbing){
+        //delta in the high half and id in the low half so a primitive sort does it
+        long[] keys = new long[table.size()];
+        int count = 0;
+        for(int id = 0; id<keys.length; id++){
+            if(delta[id] != 0){
+                long key = climbing ? -delta[id] : delta[id];
+                keys[count++] = (key << 32) | id;
+            }
+        }
+        Arrays.parallelSort(keys, 0, count);
+        int[] result = new int[Math.min(n, count)];
+        for(int i = 0; i<result.length; i++){
+            result[i] = (int)keys[i];
+        }
+        return result;
+    }
+
+    private void measure(int id){
+        int row = id*columns;
+        delta[id] = rank(row+from) - rank(row+to);
+        peak[id] = -1;
+        first[id] = -1;
+        last[id] = -1;
+        int best = Integer.MAX_VALUE;
+        double sum = 0;
+        double squares = 0;
+        for(int c = 0; c<columns; c++){
+            int stat = ranks[row+c];
+            if(stat != 0){
+                if(first[id] < 0){
+                    first[id] = c;
+                }
+                last[id] = c;
+                if(stat < best){
+                    best = stat;
+                    peak[id] = c;
+                }
+            }
+            if(c > 0){
+                int change = rank(row+c) - rank(row+c-1);
+                sum += change;
+                squares += (double)change*change;
+            }
+        }
+        int changes = columns-1;
+        if(changes > 0){
+            double mean = sum/changes;
+            volatility[id] = Math.sqrt(Math.max(0, squares/changes - mean*mean));
+        }
+    }
+
+    private int rank(int index){
+        return ranks[index] == 0 ? ChartRenderer.UNRANKED : ranks[index];
+    }
+
+    private class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L; //never actually serialized, fork/join just makes it Serializable
+        private final int start;
+        private final int end;
+
+        Chunk(int start, int end){
+            this.start = start;
+            this.end = end;
+        }
+
+        protected void compute(){
+            if(end-start <= CHUNK){
+                for(int id = start; id<end; id++){
+                    measure(id);
+                }
+                return;
+            }
+            int middle = (start+end) >>> 1;
+            invokeAll(new Chunk(start, middle), new Chunk(middle, end));
+        }
+    }
+}